@@ -0,0 +1,68 @@
+package com.infostretch.labs.plugins;
+
+import com.infostretch.labs.pipeline.Block;
+import com.infostretch.labs.pipeline.ScriptEmitter;
+import com.infostretch.labs.pipeline.ScriptRenderer;
+import com.infostretch.labs.transformers.SyntheticConfigs;
+import com.infostretch.labs.transformers.Transformer;
+import com.infostretch.labs.utils.XmlUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import java.io.StringReader;
+import java.util.HashMap;
+
+/**
+ * Measures transformBuild and transformPublisher of each plugin on a single node, including rendering the statements they add.
+ * The node is cloned for every operation so that lookups are not served from the index of a previous operation;
+ * subtract cloneNode to get the cost of the transformation alone.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PluginBenchmark {
+
+    @Param({"hudson.tasks.Shell", "hudson.tasks.BatchFile", "hudson.tasks.Maven", "hudson.tasks.Ant",
+            "hudson.tasks.ArtifactArchiver", "hudson.tasks.junit.JUnitResultArchiver", "hudson.plugins.testng.Publisher",
+            "hudson.tasks.Mailer"})
+    public String nodeName;
+
+    private Node node;
+    private Transformer transformer;
+    private StringBuilder steps;
+
+    @Setup
+    public void setUp() throws Exception {
+        node = XmlUtil.getDocumentBuilder().parse(new InputSource(new StringReader(SyntheticConfigs.STEPS.get(nodeName))))
+                .getDocumentElement();
+        transformer = new Transformer(new HashMap());
+        steps = new StringBuilder();
+    }
+
+    @Benchmark
+    public Node cloneNode() {
+        return node.cloneNode(true);
+    }
+
+    @Benchmark
+    public int transform() {
+        steps.setLength(0);
+        transformer.buildSteps = Block.sequence();
+        transformer.publishSteps = Block.sequence();
+        Plugins plugin = PluginRegistry.create(nodeName, transformer, node.cloneNode(true));
+        plugin.transformBuild();
+        plugin.transformPublisher();
+        new ScriptRenderer(new ScriptEmitter(steps))
+                .render(Block.sequence().add(transformer.buildSteps).add(transformer.publishSteps), ScriptRenderer.Syntax.SCRIPTED);
+        return steps.length();
+    }
+}
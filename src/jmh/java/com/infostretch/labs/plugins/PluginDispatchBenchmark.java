@@ -0,0 +1,49 @@
+package com.infostretch.labs.plugins;
+
+import com.infostretch.labs.transformers.Transformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Node;
+
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+
+/**
+ * Compares creating a plugin through PluginRegistry factories with the reflective construction it replaced.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PluginDispatchBenchmark {
+
+    private Transformer transformer;
+    private Constructor<? extends Plugins> constructor;
+
+    @Setup
+    public void setUp() throws Exception {
+        transformer = new Transformer(new HashMap());
+        constructor = Shell.class.getConstructor(Transformer.class, Node.class);
+    }
+
+    @Benchmark
+    public Plugins factory() {
+        return PluginRegistry.create("hudson.tasks.Shell", transformer, null);
+    }
+
+    @Benchmark
+    public Plugins cachedConstructor() throws Exception {
+        return constructor.newInstance(transformer, null);
+    }
+
+    @Benchmark
+    public Plugins classForName() throws Exception {
+        Class<?> pluginClass = Class.forName("com.infostretch.labs.plugins.Shell");
+        return (Plugins) pluginClass.getConstructor(Transformer.class, Node.class).newInstance(transformer, null);
+    }
+}
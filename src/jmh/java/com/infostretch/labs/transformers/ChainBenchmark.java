@@ -0,0 +1,55 @@
+package com.infostretch.labs.transformers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Measures conversion of downstream chains, from reading every config.xml to the pipeline configuration of the chain.
+ * Jobs alternate between two labels and two repositories so node blocks and checkouts are switched along the chain.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ChainBenchmark {
+
+    @Param({"1", "10", "100", "500"})
+    public int jobs;
+
+    @Param({"10"})
+    public int buildSteps;
+
+    private List<byte[]> configs;
+    private List<String> jobNames;
+
+    @Setup
+    public void setUp() {
+        configs = new ArrayList<>();
+        jobNames = new ArrayList<>();
+        for (int i = 0; i < jobs; i++) {
+            configs.add(SyntheticConfigs.bytes(SyntheticConfigs.project(buildSteps, i % 4 < 2 ? "linux" : "windows",
+                    "https://example.com/repo" + (i % 2) + ".git")));
+            jobNames.add("job-" + i);
+        }
+    }
+
+    @Benchmark
+    public String convertChain() throws Exception {
+        List<Document> docs = new ArrayList<>(configs.size());
+        for (byte[] config : configs) {
+            docs.add(SyntheticConfigs.readSections(config));
+        }
+        return new Transformer(new HashMap()).transformXml(docs, jobNames);
+    }
+}
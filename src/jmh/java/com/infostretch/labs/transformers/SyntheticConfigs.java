@@ -0,0 +1,88 @@
+package com.infostretch.labs.transformers;
+
+import com.infostretch.labs.utils.XmlUtil;
+import org.w3c.dom.Document;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates FreeStyle job configurations of a given size for benchmarks.
+ */
+public final class SyntheticConfigs {
+
+    /**
+     * Build steps and post-build actions keyed by node name, as written by Jenkins.
+     */
+    public static final Map<String, String> STEPS = new LinkedHashMap<>();
+
+    static {
+        STEPS.put("hudson.tasks.Shell", "<hudson.tasks.Shell>\n      <command>#!/bin/bash\nmake all &amp;&amp; ./run-tests.sh ${BUILD_NUMBER}\n</command>\n      <unstableReturn>2</unstableReturn>\n    </hudson.tasks.Shell>");
+        STEPS.put("hudson.tasks.BatchFile", "<hudson.tasks.BatchFile>\n      <command>msbuild /p:Configuration=Release</command>\n      <unstableReturn>3</unstableReturn>\n    </hudson.tasks.BatchFile>");
+        STEPS.put("hudson.tasks.Maven", "<hudson.tasks.Maven>\n      <targets>clean install</targets>\n      <mavenName>maven3</mavenName>\n      <jvmOptions>-Xmx1g</jvmOptions>\n      <pom>sub/pom.xml</pom>\n      <properties>a=b\nc=d</properties>\n      <usePrivateRepository>true</usePrivateRepository>\n      <settings class=\"jenkins.mvn.FilePathSettingsProvider\">\n        <path>settings.xml</path>\n      </settings>\n      <globalSettings class=\"jenkins.mvn.DefaultGlobalSettingsProvider\"/>\n      <injectBuildVariables>false</injectBuildVariables>\n    </hudson.tasks.Maven>");
+        STEPS.put("hudson.tasks.Ant", "<hudson.tasks.Ant plugin=\"ant@1.4\">\n      <targets>dist</targets>\n      <antName>ant1.9</antName>\n      <antOpts>-v</antOpts>\n      <buildFile>build.xml</buildFile>\n      <properties>x=y</properties>\n    </hudson.tasks.Ant>");
+        STEPS.put("hudson.tasks.ArtifactArchiver", "<hudson.tasks.ArtifactArchiver>\n      <artifacts>**/*.jar</artifacts>\n      <excludes>tmp/**</excludes>\n      <allowEmptyArchive>false</allowEmptyArchive>\n      <onlyIfSuccessful>false</onlyIfSuccessful>\n      <fingerprint>true</fingerprint>\n      <defaultExcludes>true</defaultExcludes>\n      <caseSensitive>true</caseSensitive>\n    </hudson.tasks.ArtifactArchiver>");
+        STEPS.put("hudson.tasks.junit.JUnitResultArchiver", "<hudson.tasks.junit.JUnitResultArchiver plugin=\"junit@1.2\">\n      <testResults>**/TEST-*.xml</testResults>\n    </hudson.tasks.junit.JUnitResultArchiver>");
+        STEPS.put("hudson.plugins.testng.Publisher", "<hudson.plugins.testng.Publisher plugin=\"testng-plugin@1.14\">\n      <reportFilenamePattern>**/testng-results.xml</reportFilenamePattern>\n      <escapeTestDescp>true</escapeTestDescp>\n      <escapeExceptionMsg>true</escapeExceptionMsg>\n      <failureOnFailedTestConfig>false</failureOnFailedTestConfig>\n      <showFailedBuilds>false</showFailedBuilds>\n      <unstableSkips>100</unstableSkips>\n      <unstableFails>0</unstableFails>\n      <failedSkips>100</failedSkips>\n      <failedFails>100</failedFails>\n      <thresholdMode>2</thresholdMode>\n    </hudson.plugins.testng.Publisher>");
+        STEPS.put("hudson.tasks.Mailer", "<hudson.tasks.Mailer plugin=\"mailer@1.18\">\n      <recipients>dev@example.com</recipients>\n      <dontNotifyEveryUnstableBuild>false</dontNotifyEveryUnstableBuild>\n      <sendToIndividuals>true</sendToIndividuals>\n    </hudson.tasks.Mailer>");
+    }
+
+    private static final String[] BUILD_STEPS = {"hudson.tasks.Shell", "hudson.tasks.BatchFile", "hudson.tasks.Maven", "hudson.tasks.Ant"};
+
+    private static final String[] PUBLISHERS = {"hudson.tasks.ArtifactArchiver", "hudson.tasks.junit.JUnitResultArchiver",
+            "hudson.plugins.testng.Publisher", "hudson.tasks.Mailer"};
+
+    private SyntheticConfigs() {
+    }
+
+    /**
+     * @param buildSteps Number of build steps, cycling through Shell, BatchFile, Maven and Ant.
+     * @param label Label the job is restricted to.
+     * @param url Git repository of the job.
+     * @return config.xml of a FreeStyle job.
+     */
+    public static String project(int buildSteps, String label, String url) {
+        StringBuilder xml = new StringBuilder("<?xml version='1.1' encoding='UTF-8'?>\n<project>\n");
+        xml.append("  <actions/>\n  <description>Synthetic job with ").append(buildSteps).append(" build steps</description>\n");
+        xml.append("  <keepDependencies>false</keepDependencies>\n  <properties/>\n");
+        xml.append("  <scm class=\"hudson.plugins.git.GitSCM\" plugin=\"git@3.0.0\">\n    <configVersion>2</configVersion>\n");
+        xml.append("    <userRemoteConfigs>\n      <hudson.plugins.git.UserRemoteConfig>\n        <url>").append(url);
+        xml.append("</url>\n        <credentialsId>creds</credentialsId>\n      </hudson.plugins.git.UserRemoteConfig>\n    </userRemoteConfigs>\n");
+        xml.append("    <branches>\n      <hudson.plugins.git.BranchSpec>\n        <name>*/master</name>\n      </hudson.plugins.git.BranchSpec>\n    </branches>\n  </scm>\n");
+        xml.append("  <assignedNode>").append(label).append("</assignedNode>\n  <canRoam>false</canRoam>\n  <disabled>false</disabled>\n");
+        xml.append("  <jdk>jdk8</jdk>\n  <triggers/>\n  <concurrentBuild>false</concurrentBuild>\n  <builders>\n");
+        for (int i = 0; i < buildSteps; i++) {
+            xml.append("    ").append(STEPS.get(BUILD_STEPS[i % BUILD_STEPS.length])).append("\n");
+        }
+        xml.append("  </builders>\n  <publishers>\n");
+        for (String publisher : PUBLISHERS) {
+            xml.append("    ").append(STEPS.get(publisher)).append("\n");
+        }
+        xml.append("  </publishers>\n  <buildWrappers/>\n</project>\n");
+        return xml.toString();
+    }
+
+    /**
+     * @param xml Configuration to parse.
+     * @return Full DOM of the configuration.
+     * @throws Exception If it cannot be parsed.
+     */
+    public static Document parse(byte[] xml) throws Exception {
+        return XmlUtil.getDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+
+    /**
+     * @param xml Configuration to read.
+     * @return Sections of the configuration that are transformed, as read by ConfigSectionReader.
+     * @throws Exception If it cannot be read.
+     */
+    public static Document readSections(byte[] xml) throws Exception {
+        return ConfigSectionReader.read(new ByteArrayInputStream(xml), Transformer.SECTIONS);
+    }
+
+    static byte[] bytes(String xml) {
+        return xml.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,95 @@
+package com.infostretch.labs.transformers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+
+/**
+ * Measures the stages of converting a single job: parsing config.xml, transforming it and writing the pipeline configuration.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TransformerBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int buildSteps;
+
+    private byte[] config;
+    private Transformer transformed;
+
+    @Setup
+    public void setUp() throws Exception {
+        config = SyntheticConfigs.bytes(SyntheticConfigs.project(buildSteps, "linux", "https://example.com/repo.git"));
+        transformed = new Transformer(new HashMap());
+        transformed.transformXml(SyntheticConfigs.readSections(config), "job");
+    }
+
+    /**
+     * A fresh document per invocation, since transformation normalizes and indexes the document it reads.
+     */
+    @State(Scope.Thread)
+    public static class FreshDocument {
+        Document doc;
+
+        @Setup(Level.Invocation)
+        public void setUp(TransformerBenchmark benchmark) throws Exception {
+            doc = SyntheticConfigs.readSections(benchmark.config);
+        }
+    }
+
+    @Benchmark
+    public Document parseDocument() throws Exception {
+        return SyntheticConfigs.parse(config);
+    }
+
+    @Benchmark
+    public Document readSections() throws Exception {
+        return SyntheticConfigs.readSections(config);
+    }
+
+    @Benchmark
+    public JobFragment transformDocument(FreshDocument fresh) throws Exception {
+        Transformer transformer = new Transformer(new HashMap());
+        transformer.currentJobName = "job";
+        transformer.doc = fresh.doc;
+        return transformer.transformDocument();
+    }
+
+    /**
+     * The configuration is written while its stream is read, so the stream is read to the end.
+     */
+    @Benchmark
+    public long writeConfiguration() throws IOException {
+        transformed.writeConfiguration();
+        return drain(transformed.getStream());
+    }
+
+    @Benchmark
+    public long convertJob() throws Exception {
+        Transformer transformer = new Transformer(new HashMap());
+        transformer.transformXml(SyntheticConfigs.readSections(config), "job");
+        return drain(transformer.getStream());
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        long length = 0;
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            length += read;
+        }
+        return length;
+    }
+}
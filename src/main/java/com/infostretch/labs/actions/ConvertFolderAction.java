@@ -19,6 +19,7 @@ package com.infostretch.labs.actions;
 import com.cloudbees.hudson.plugins.folder.Folder;
 import com.cloudbees.hudson.plugins.folder.TransientFolderActionFactory;
 import com.infostretch.labs.utils.ActionUtil;
+import com.infostretch.labs.utils.JenkinsfileBatch;
 import hudson.Extension;
 import hudson.model.*;
 import hudson.util.FormValidation;
@@ -26,7 +27,9 @@ import jenkins.model.Jenkins;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.*;
 
@@ -58,33 +61,6 @@ public class ConvertFolderAction implements Action, Describable<ConvertFolderAct
         return Messages.ConvertAction_UrlName();
     }
 
-    public Collection<? extends Job> listFreeStyleJobs() {
-        return (Collection<Job>)listFreeStyleJobs(folder);
-    }
-
-    /**
-     * List FreeStyle Jobs in current folder and sub-folders.
-     *
-     * @param folder Current folder whose jobs and jobs under sub-folders need to be listed.
-     *
-     * @return List of FreeStyle jobs and jobs under sub-folders.
-     */
-    public Collection listFreeStyleJobs(Folder folder) {
-        Set jobs = new HashSet();
-        Iterator folderItemsIterator = folder.getItems().iterator();
-        while(folderItemsIterator.hasNext()) {
-            Item i = (Item)folderItemsIterator.next();
-            if(i.getClass().equals(FreeStyleProject.class)) {
-                jobs.addAll(i.getAllJobs());
-            }
-            else if(i.getClass().equals(Folder.class)) {
-                Set<Job> subJob = (Set<Job>) listFreeStyleJobs((Folder)i);
-                jobs.addAll(subJob);
-            }
-        }
-        return jobs;
-    }
-
     /**
      * Handles submit action of convert button
      *
@@ -96,8 +72,8 @@ public class ConvertFolderAction implements Action, Describable<ConvertFolderAct
      */
     public void doConvert(final StaplerRequest request, final StaplerResponse response) throws ServletException,
             IOException {
-        if(ActionUtil.validateForm(request.getParameter("newName"), request.getParameter("sourceJob"))) {
-            FreeStyleProject job = (FreeStyleProject) Jenkins.getInstance().getItemByFullName(request.getParameter("sourceJob"));
+        FreeStyleProject job = Jenkins.getInstance().getItemByFullName(request.getParameter("sourceJob"), FreeStyleProject.class);
+        if(job != null && ActionUtil.validateForm(request.getParameter("newName"), request.getParameter("sourceJob"))) {
             ActionUtil actionUtil = new ActionUtil(job);
             actionUtil.doConvert(request, response);
         } else {
@@ -105,6 +81,74 @@ public class ConvertFolderAction implements Action, Describable<ConvertFolderAct
         }
     }
 
+    /**
+     * Handles preview action; writes the script, or the XML with "format=xml", without creating a job.
+     *
+     * @param request StaplerRequest object with "sourceJob" and the same parameters as the convert form.
+     * @param response StaplerResponse object to which the preview is written.
+     *
+     * @throws IOException If an input or output exception occurred.
+     */
+    public void doPreview(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        FreeStyleProject job = Jenkins.getInstance().getItemByFullName(request.getParameter("sourceJob"), FreeStyleProject.class);
+        if (job == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "No such FreeStyle job: " + request.getParameter("sourceJob"));
+            return;
+        }
+        new ActionUtil(job).doPreview(request, response);
+    }
+
+    /**
+     * Handles bulk conversion of jobs in current folder and sub-folders selected by full name or pattern.
+     * Conversions are queued and a batch id is returned immediately as JSON.
+     *
+     * @param request StaplerRequest object with "jobs" and/or "pattern" parameters.
+     * @param response StaplerResponse object to which the batch details are written.
+     *
+     * @throws IOException If an input or output exception occurred.
+     */
+    @RequirePOST
+    public void doBulkConvert(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        folder.checkPermission(Item.CREATE);
+        ActionUtil.doBulkConvert(request, response, folder);
+    }
+
+    /**
+     * Reports progress and per job results of a bulk conversion to users who may start one here.
+     *
+     * @param id Batch id returned by bulk conversion.
+     * @param response StaplerResponse object to which the batch status is written.
+     *
+     * @throws IOException If an input or output exception occurred.
+     */
+    public void doBatchStatus(@QueryParameter("id") String id, final StaplerResponse response) throws IOException {
+        folder.checkPermission(Item.CREATE);
+        ActionUtil.doBatchStatus(id, response);
+    }
+
+    /**
+     * Searches FreeStyle jobs by part of their full name, one page at a time.
+     *
+     * @param request StaplerRequest object with optional "q", "start" and "limit" parameters.
+     * @param response StaplerResponse object to which the page of jobs is written as JSON.
+     *
+     * @throws IOException If an input or output exception occurred.
+     */
+    public void doSearchJobs(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        ActionUtil.doSearchJobs(folder, request, response);
+    }
+
+    /**
+     * Auto completes the source job field of the convert form.
+     *
+     * @param value Text typed so far.
+     *
+     * @return Full names of the first page of matching FreeStyle jobs.
+     */
+    public AutoCompletionCandidates doAutoCompleteSourceJob(@QueryParameter("value") String value) {
+        return ActionUtil.autoCompleteJobs(folder, value);
+    }
+
     /**
      * Defines visibility level of action to Folder items.
      *
@@ -148,5 +192,36 @@ public class ConvertFolderAction implements Action, Describable<ConvertFolderAct
             }
             return FormValidation.ok();
         }
+
+        /**
+         * Validate that the source job typed in is an existing FreeStyle job.
+         *
+         * @param sourceJob Full name of original FreeStyle job that will be converted.
+         *
+         * @return Form Validation response with error message if any.
+         */
+        public FormValidation doCheckSourceJob(@QueryParameter("sourceJob") String sourceJob) {
+            if(sourceJob != null && sourceJob.length()>0
+                    && Jenkins.getInstance().getItemByFullName(sourceJob, FreeStyleProject.class) == null) {
+                return FormValidation.error(Messages.ConvertAction_NoSuchJob() + " '" + sourceJob + "'");
+            }
+            return FormValidation.ok();
+        }
+
+        /**
+         * Validate the path of Jenkinsfiles of a bulk conversion, with {@link JenkinsfileBatch#JOB_NAME} replaced by
+         * a plain job name.
+         *
+         * @param jenkinsfilePath Path of Jenkinsfiles in the repository.
+         *
+         * @return Form Validation response with error message if any.
+         */
+        public FormValidation doCheckJenkinsfilePath(@QueryParameter("jenkinsfilePath") String jenkinsfilePath) {
+            String path = new JenkinsfileBatch(jenkinsfilePath, "").getPath("job");
+            if(!JenkinsfileBatch.isValidPath(path)) {
+                return FormValidation.error(Messages.ConvertAction_InvalidJenkinsfilePath() + " '" + path + "'");
+            }
+            return FormValidation.ok();
+        }
     }
 }
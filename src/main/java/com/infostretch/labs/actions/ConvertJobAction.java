@@ -74,6 +74,18 @@ public class ConvertJobAction implements Action, Describable<ConvertJobAction> {
         }
     }
 
+    /**
+     * Handles preview action; writes the script, or the XML with "format=xml", without creating a job.
+     *
+     * @param request StaplerRequest object with the same parameters as the convert form.
+     * @param response StaplerResponse object to which the preview is written.
+     *
+     * @throws IOException If an input or output exception occurred.
+     */
+    public void doPreview(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        new ActionUtil(job).doPreview(request, response);
+    }
+
     /**
      * Defines visibility level of action to FreeStyle items.
      *
@@ -18,6 +18,7 @@
 package com.infostretch.labs.actions;
 
 import com.infostretch.labs.utils.ActionUtil;
+import com.infostretch.labs.utils.JenkinsfileBatch;
 import hudson.Extension;
 import hudson.model.*;
 import hudson.util.FormValidation;
@@ -25,10 +26,11 @@ import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 import jenkins.model.Jenkins;
 import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
 
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
 
 /**
  * Handle job level convert action.
@@ -63,8 +65,8 @@ public class ConvertRootAction implements RootAction, Describable<ConvertRootAct
      */
     public void doConvert(final StaplerRequest request, final StaplerResponse response) throws ServletException,
             IOException {
-        if(ActionUtil.validateForm(request.getParameter("newName"), request.getParameter("sourceJob"))) {
-            FreeStyleProject job = (FreeStyleProject) Jenkins.getInstance().getItemByFullName(request.getParameter("sourceJob"));
+        FreeStyleProject job = Jenkins.getInstance().getItemByFullName(request.getParameter("sourceJob"), FreeStyleProject.class);
+        if(job != null && ActionUtil.validateForm(request.getParameter("newName"), request.getParameter("sourceJob"))) {
             ActionUtil actionUtil = new ActionUtil(job);
             actionUtil.doConvert(request, response);
         } else {
@@ -73,12 +75,71 @@ public class ConvertRootAction implements RootAction, Describable<ConvertRootAct
     }
 
     /**
-     * List FreeStyle Jobs at root level.
+     * Handles preview action; writes the script, or the XML with "format=xml", without creating a job.
      *
-     * @return List of FreeStyle jobs.
+     * @param request StaplerRequest object with "sourceJob" and the same parameters as the convert form.
+     * @param response StaplerResponse object to which the preview is written.
+     *
+     * @throws IOException If an input or output exception occurred.
      */
-    public List listFreeStyleJobs() {
-        return Jenkins.getInstance().getAllItems(FreeStyleProject.class);
+    public void doPreview(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        FreeStyleProject job = Jenkins.getInstance().getItemByFullName(request.getParameter("sourceJob"), FreeStyleProject.class);
+        if (job == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "No such FreeStyle job: " + request.getParameter("sourceJob"));
+            return;
+        }
+        new ActionUtil(job).doPreview(request, response);
+    }
+
+    /**
+     * Handles bulk conversion of jobs selected by full name or pattern.
+     * Conversions are queued and a batch id is returned immediately as JSON.
+     *
+     * @param request StaplerRequest object with "jobs" and/or "pattern" parameters.
+     * @param response StaplerResponse object to which the batch details are written.
+     *
+     * @throws IOException If an input or output exception occurred.
+     */
+    @RequirePOST
+    public void doBulkConvert(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        Jenkins.getInstance().checkPermission(Item.CREATE);
+        ActionUtil.doBulkConvert(request, response, Jenkins.getInstance());
+    }
+
+    /**
+     * Reports progress and per job results of a bulk conversion to users who may start one here.
+     *
+     * @param id Batch id returned by bulk conversion.
+     * @param response StaplerResponse object to which the batch status is written.
+     *
+     * @throws IOException If an input or output exception occurred.
+     */
+    public void doBatchStatus(@QueryParameter("id") String id, final StaplerResponse response) throws IOException {
+        Jenkins.getInstance().checkPermission(Item.CREATE);
+        ActionUtil.doBatchStatus(id, response);
+    }
+
+    /**
+     * Searches FreeStyle jobs by part of their full name, one page at a time.
+     *
+     * @param request StaplerRequest object with optional "q", "start" and "limit" parameters.
+     * @param response StaplerResponse object to which the page of jobs is written as JSON.
+     *
+     * @throws IOException If an input or output exception occurred.
+     */
+    public void doSearchJobs(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        ActionUtil.doSearchJobs(Jenkins.getInstance(), request, response);
+    }
+
+    /**
+     * Auto completes the source job field of the convert form.
+     *
+     * @param value Text typed so far.
+     *
+     * @return Full names of the first page of matching FreeStyle jobs.
+     */
+    public AutoCompletionCandidates doAutoCompleteSourceJob(@QueryParameter("value") String value) {
+        return ActionUtil.autoCompleteJobs(Jenkins.getInstance(), value);
     }
 
     @Override
@@ -108,5 +169,36 @@ public class ConvertRootAction implements RootAction, Describable<ConvertRootAct
             }
             return FormValidation.ok();
         }
+
+        /**
+         * Validate that the source job typed in is an existing FreeStyle job.
+         *
+         * @param sourceJob Full name of original FreeStyle job that will be converted.
+         *
+         * @return Form Validation response with error message if any.
+         */
+        public FormValidation doCheckSourceJob(@QueryParameter("sourceJob") String sourceJob) {
+            if(sourceJob != null && sourceJob.length()>0
+                    && Jenkins.getInstance().getItemByFullName(sourceJob, FreeStyleProject.class) == null) {
+                return FormValidation.error(Messages.ConvertAction_NoSuchJob() + " '" + sourceJob + "'");
+            }
+            return FormValidation.ok();
+        }
+
+        /**
+         * Validate the path of Jenkinsfiles of a bulk conversion, with {@link JenkinsfileBatch#JOB_NAME} replaced by
+         * a plain job name.
+         *
+         * @param jenkinsfilePath Path of Jenkinsfiles in the repository.
+         *
+         * @return Form Validation response with error message if any.
+         */
+        public FormValidation doCheckJenkinsfilePath(@QueryParameter("jenkinsfilePath") String jenkinsfilePath) {
+            String path = new JenkinsfileBatch(jenkinsfilePath, "").getPath("job");
+            if(!JenkinsfileBatch.isValidPath(path)) {
+                return FormValidation.error(Messages.ConvertAction_InvalidJenkinsfilePath() + " '" + path + "'");
+            }
+            return FormValidation.ok();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Named arguments of a pipeline step in the order they are added, written as <code>name: value, name: value</code>.
+ *
+ * @author Mohit Dharamshi
+ */
+public class Arguments {
+
+    private final List<String> arguments = new ArrayList<>();
+
+    /**
+     * Adds an argument whose value is written as given, e.g. a boolean, number or double quoted string.
+     *
+     * @param name Name of the argument.
+     * @param value Groovy expression of the value.
+     * @return These arguments.
+     */
+    public Arguments add(String name, String value) {
+        arguments.add(name + ": " + value);
+        return this;
+    }
+
+    /**
+     * Adds an argument whose value is written in single quotes.
+     *
+     * @param name Name of the argument.
+     * @param value Value of the argument.
+     * @return These arguments.
+     */
+    public Arguments addQuoted(String name, String value) {
+        return add(name, "'" + value + "'");
+    }
+
+    /**
+     * @return True if no argument has been added.
+     */
+    public boolean isEmpty() {
+        return arguments.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.join(", ", arguments);
+    }
+}
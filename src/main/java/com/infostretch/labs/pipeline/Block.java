@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Block of statements of the pipeline model, e.g. a node, a stage, a block step such as withEnv or Groovy code such as if.
+ * A sequence is a block without a head of its own; its statements are written in place of it.
+ *
+ * @author Mohit Dharamshi
+ */
+public class Block extends Statement {
+
+    /**
+     * Kinds of blocks.
+     */
+    public enum Kind {
+        /** Statements without a block of their own. */
+        SEQUENCE,
+        /** The timestamps wrapper around the whole pipeline. */
+        TIMESTAMPS,
+        /** Node block; its name is the label, or null for any agent. */
+        NODE,
+        /** Stage; its name is the stage name. */
+        STAGE,
+        /** Block step such as withEnv; its name is the step and its argument the arguments of the step. */
+        STEP,
+        /** Groovy code block such as if; its name is the head of the block. */
+        CODE
+    }
+
+    private final Kind kind;
+    private final String name;
+    private final String argument;
+    private final List<Statement> statements = new ArrayList<>();
+    private Block otherwise;
+
+    private Block(Kind kind, String name, String argument) {
+        this.kind = kind;
+        this.name = name;
+        this.argument = argument;
+    }
+
+    /**
+     * @return New sequence of statements.
+     */
+    public static Block sequence() {
+        return new Block(Kind.SEQUENCE, null, null);
+    }
+
+    /**
+     * @return New timestamps wrapper.
+     */
+    public static Block timestamps() {
+        return new Block(Kind.TIMESTAMPS, "timestamps", null);
+    }
+
+    /**
+     * @param label Label of the node or null for any node.
+     * @return New node block.
+     */
+    public static Block node(String label) {
+        return new Block(Kind.NODE, label, null);
+    }
+
+    /**
+     * @param name Name of the stage.
+     * @return New stage.
+     */
+    public static Block stage(String name) {
+        return new Block(Kind.STAGE, name, null);
+    }
+
+    /**
+     * @param name Name of the step, e.g. withEnv.
+     * @param argument Arguments of the step as written in the script, or null if the step takes none.
+     * @return New block step.
+     */
+    public static Block step(String name, String argument) {
+        return new Block(Kind.STEP, name, argument);
+    }
+
+    /**
+     * @param head Head of the code block, e.g. <code>if(isUnix())</code>, or an empty string for a plain block.
+     * @return New code block.
+     */
+    public static Block code(String head) {
+        return new Block(Kind.CODE, head, null);
+    }
+
+    /**
+     * Adds statement to the end of this block.
+     *
+     * @param statement Statement to add.
+     * @return This block.
+     */
+    public Block add(Statement statement) {
+        statements.add(statement);
+        return this;
+    }
+
+    /**
+     * Sets the else branch of a code block.
+     *
+     * @param otherwise Block with the statements of the else branch.
+     * @return This block.
+     */
+    public Block orElse(Block otherwise) {
+        this.otherwise = otherwise;
+        return this;
+    }
+
+    /**
+     * Moves all statements of given block to the end of this block.
+     *
+     * @param block Block whose statements are moved.
+     */
+    public void takeStatements(Block block) {
+        statements.addAll(block.statements);
+        block.statements.clear();
+    }
+
+    /**
+     * @return Kind of the block.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return Label of a node, name of a stage or step, or head of a code block.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Arguments of a block step as written in the script, or null.
+     */
+    public String getArgument() {
+        return argument;
+    }
+
+    /**
+     * @return Else branch of a code block, or null.
+     */
+    public Block getOtherwise() {
+        return otherwise;
+    }
+
+    /**
+     * @return Statements of the block.
+     */
+    public List<Statement> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    /**
+     * @return Statements of the block that may be changed by post-processing passes.
+     */
+    List<Statement> mutableStatements() {
+        return statements;
+    }
+
+    /**
+     * @return True if the block has no statements, including those of nested sequences.
+     */
+    public boolean isEmpty() {
+        for (Statement statement : statements) {
+            if (!(statement instanceof Block) || ((Block) statement).kind != Kind.SEQUENCE || !((Block) statement).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isDeclarative() {
+        if (kind == Kind.CODE || kind == Kind.NODE || kind == Kind.STAGE || kind == Kind.TIMESTAMPS) {
+            return false;
+        }
+        for (Statement statement : statements) {
+            if (!statement.isDeclarative()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.pipeline;
+
+/**
+ * Comment in the pipeline script. Single line comments are written with "//", others as a block comment.
+ *
+ * @author Mohit Dharamshi
+ */
+public class Comment extends Statement {
+
+    private final String text;
+
+    /**
+     * @param text Text of the comment without comment markers.
+     */
+    public Comment(String text) {
+        this.text = text;
+    }
+
+    /**
+     * @return Text of the comment without comment markers.
+     */
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public boolean isDeclarative() {
+        return true;
+    }
+}
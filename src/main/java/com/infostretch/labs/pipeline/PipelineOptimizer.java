@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.pipeline;
+
+import java.util.Iterator;
+
+/**
+ * Post-processing passes over the pipeline model, run before it is rendered.
+ *
+ * @author Mohit Dharamshi
+ */
+public final class PipelineOptimizer {
+
+    private PipelineOptimizer() {
+    }
+
+    /**
+     * Merges each node block into the node block right before it if both run on the same label,
+     * e.g. for downstream jobs that run on the same agent. Labels are compared ignoring case and no label equals an empty label.
+     *
+     * @param block Block whose nested node blocks are merged.
+     */
+    public static void mergeAdjacentNodes(Block block) {
+        Block previous = null;
+        Iterator<Statement> statements = block.mutableStatements().iterator();
+        while (statements.hasNext()) {
+            Statement statement = statements.next();
+            if (!(statement instanceof Block)) {
+                previous = null;
+                continue;
+            }
+            Block current = (Block) statement;
+            if (current.getKind() == Block.Kind.NODE) {
+                if (previous != null && label(previous).equalsIgnoreCase(label(current))) {
+                    previous.takeStatements(current);
+                    statements.remove();
+                } else {
+                    previous = current;
+                }
+            } else {
+                previous = null;
+                if (current.getKind() == Block.Kind.TIMESTAMPS || current.getKind() == Block.Kind.SEQUENCE) {
+                    mergeAdjacentNodes(current);
+                }
+            }
+        }
+    }
+
+    private static String label(Block node) {
+        return node.getName() == null ? "" : node.getName();
+    }
+}
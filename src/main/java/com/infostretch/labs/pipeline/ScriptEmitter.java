@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.pipeline;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * ScriptEmitter writes the generated pipeline script to a sink, e.g. a StringBuilder, a Writer of a file or an HTTP response,
+ * without keeping copies of the script. It also keeps track of the indentation depth so that lines are indented
+ * by the emitter instead of by tab literals in each plugin.
+ *
+ * @author Mohit Dharamshi
+ */
+public class ScriptEmitter implements Appendable {
+
+    private final Appendable sink;
+    private final String indentUnit;
+    private int depth;
+
+    /**
+     * Creates an emitter that collects the script in memory.
+     */
+    public ScriptEmitter() {
+        this(new StringBuilder());
+    }
+
+    /**
+     * Creates an emitter that indents by tabs.
+     *
+     * @param sink Sink the script is written to.
+     */
+    public ScriptEmitter(Appendable sink) {
+        this(sink, "\t");
+    }
+
+    /**
+     * @param sink Sink the script is written to.
+     * @param indentUnit String written once per indentation level.
+     */
+    public ScriptEmitter(Appendable sink, String indentUnit) {
+        this.sink = sink;
+        this.indentUnit = indentUnit;
+    }
+
+    @Override
+    public ScriptEmitter append(CharSequence text) {
+        try {
+            sink.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public ScriptEmitter append(CharSequence text, int start, int end) {
+        try {
+            sink.append(text, start, end);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public ScriptEmitter append(char c) {
+        try {
+            sink.append(c);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the indentation of the current depth.
+     *
+     * @return This emitter.
+     */
+    public ScriptEmitter indentation() {
+        for (int i = 0; i < depth; i++) {
+            append(indentUnit);
+        }
+        return this;
+    }
+
+    /**
+     * @param depth Indentation depth of following lines.
+     */
+    public void setDepth(int depth) {
+        this.depth = Math.max(0, depth);
+    }
+
+    /**
+     * @return Script written so far if the sink keeps it in memory, e.g. a StringBuilder.
+     */
+    @Override
+    public String toString() {
+        return sink.toString();
+    }
+}
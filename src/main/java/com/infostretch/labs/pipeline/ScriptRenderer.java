@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ScriptRenderer writes the pipeline model to a {@link ScriptEmitter} in a single pass,
+ * either as scripted pipeline or as declarative pipeline.
+ * In scripted pipelines the content of timestamps is not indented, so stages are indented once and their steps twice.
+ *
+ * @author Mohit Dharamshi
+ */
+public class ScriptRenderer {
+
+    /**
+     * Pipeline syntaxes the model can be rendered in.
+     */
+    public enum Syntax {
+        SCRIPTED, DECLARATIVE
+    }
+
+    private final ScriptEmitter out;
+
+    /**
+     * @param out Emitter the script is written to.
+     */
+    public ScriptRenderer(ScriptEmitter out) {
+        this.out = out;
+    }
+
+    /**
+     * Renders the pipeline.
+     *
+     * @param pipeline Root sequence of the pipeline.
+     * @param syntax Syntax to render.
+     */
+    public void render(Block pipeline, Syntax syntax) {
+        if (syntax == Syntax.DECLARATIVE) {
+            renderDeclarative(pipeline);
+        } else {
+            renderScripted(pipeline);
+        }
+    }
+
+    private void renderScripted(Block pipeline) {
+        boolean comment = false;
+        for (Statement statement : pipeline.getStatements()) {
+            if (comment && !(statement instanceof Comment)) {
+                out.append('\n');
+            }
+            writeStatement(statement, 0);
+            comment = statement instanceof Comment;
+        }
+    }
+
+    private void renderDeclarative(Block pipeline) {
+        List<Statement> comments = new ArrayList<>();
+        List<Block> nodes = new ArrayList<>();
+        boolean timestamps = collect(pipeline, comments, nodes);
+        for (Statement comment : comments) {
+            writeStatement(comment, 0);
+        }
+        if (!comments.isEmpty()) {
+            out.append('\n');
+        }
+        boolean agentPerStage = false;
+        for (Block node : nodes) {
+            agentPerStage |= !label(node).equalsIgnoreCase(label(nodes.get(0)));
+        }
+        writeLine("pipeline {", 0);
+        if (agentPerStage) {
+            writeLine("agent none", 1);
+        } else {
+            writeLine(agent(nodes.isEmpty() ? null : nodes.get(0).getName()), 1);
+        }
+        if (timestamps) {
+            writeLine("options {", 1);
+            writeLine("timestamps()", 2);
+            writeLine("}", 1);
+        }
+        writeLine("stages {", 1);
+        for (Block node : nodes) {
+            Block steps = null;
+            for (Statement statement : flatten(node)) {
+                if (statement instanceof Block && ((Block) statement).getKind() == Block.Kind.STAGE) {
+                    writeDeclarativeStage((Block) statement, agentPerStage ? node : null);
+                } else {
+                    if (steps == null) {
+                        steps = Block.stage("Steps");
+                    }
+                    steps.add(statement);
+                }
+            }
+            if (steps != null) {
+                writeDeclarativeStage(steps, agentPerStage ? node : null);
+            }
+        }
+        writeLine("}", 1);
+        writeLine("}", 0);
+    }
+
+    /**
+     * Collects comments outside of nodes and node blocks of the pipeline.
+     * Statements outside of any node are put in a node of their own.
+     *
+     * @return True if the pipeline is wrapped in timestamps.
+     */
+    private static boolean collect(Block block, List<Statement> comments, List<Block> nodes) {
+        boolean timestamps = false;
+        Block loose = null;
+        for (Statement statement : block.getStatements()) {
+            if (statement instanceof Comment) {
+                comments.add(statement);
+            } else if (statement instanceof Block && ((Block) statement).getKind() == Block.Kind.NODE) {
+                nodes.add((Block) statement);
+                loose = null;
+            } else if (statement instanceof Block && (((Block) statement).getKind() == Block.Kind.TIMESTAMPS
+                    || ((Block) statement).getKind() == Block.Kind.SEQUENCE)) {
+                timestamps |= ((Block) statement).getKind() == Block.Kind.TIMESTAMPS;
+                timestamps |= collect((Block) statement, comments, nodes);
+                loose = null;
+            } else {
+                if (loose == null) {
+                    loose = Block.node(null);
+                    nodes.add(loose);
+                }
+                loose.add(statement);
+            }
+        }
+        return timestamps;
+    }
+
+    private void writeDeclarativeStage(Block stage, Block node) {
+        writeLine("stage ('" + stage.getName() + "') {", 2);
+        if (node != null) {
+            writeLine(agent(node.getName()), 3);
+        }
+        writeLine("steps {", 3);
+        int depth = 4;
+        boolean script = !stage.getStatements().isEmpty() && !isDeclarative(stage);
+        if (script) {
+            writeLine("script {", depth++);
+        }
+        for (Statement statement : stage.getStatements()) {
+            writeStatement(statement, depth);
+        }
+        if (!hasSteps(stage)) {
+            writeLine("echo 'No steps converted'", depth);
+        }
+        if (script) {
+            writeLine("}", --depth);
+        }
+        writeLine("}", 3);
+        writeLine("}", 2);
+    }
+
+    private void writeStatement(Statement statement, int depth) {
+        if (statement instanceof Comment) {
+            writeComment(((Comment) statement).getText(), depth);
+        } else if (statement instanceof Step) {
+            writeStep((Step) statement, depth);
+        } else if (statement instanceof Block) {
+            writeBlock((Block) statement, depth);
+        }
+    }
+
+    private void writeBlock(Block block, int depth) {
+        if (block.getKind() == Block.Kind.SEQUENCE) {
+            for (Statement statement : block.getStatements()) {
+                writeStatement(statement, depth);
+            }
+            return;
+        }
+        // Content of timestamps is not indented, which keeps nodes at the left margin as in a script with a single job.
+        int inner = block.getKind() == Block.Kind.TIMESTAMPS ? depth : depth + 1;
+        String head = head(block);
+        writeLine(head.isEmpty() ? "{" : head + " {", depth);
+        for (Statement statement : block.getStatements()) {
+            writeStatement(statement, inner);
+        }
+        for (Block otherwise = block.getOtherwise(); otherwise != null; otherwise = otherwise.getOtherwise()) {
+            writeLine("} else " + (otherwise.getName().isEmpty() ? "{" : otherwise.getName() + " {"), depth);
+            for (Statement statement : otherwise.getStatements()) {
+                writeStatement(statement, inner);
+            }
+        }
+        writeLine("}", depth);
+    }
+
+    private static String head(Block block) {
+        switch (block.getKind()) {
+            case TIMESTAMPS:
+                return "timestamps";
+            case NODE:
+                return block.getName() == null ? "node ()" : "node ('" + block.getName() + "')";
+            case STAGE:
+                return "stage ('" + block.getName() + "')";
+            case STEP:
+                return block.getArgument() == null ? block.getName() : block.getName() + "(" + block.getArgument() + ")";
+            default:
+                return block.getName();
+        }
+    }
+
+    private void writeStep(Step step, int depth) {
+        if (step.isCode()) {
+            for (String line : step.getText().split("\n", -1)) {
+                writeLine(line, depth);
+            }
+        } else {
+            writeLine(step.getText(), depth);
+        }
+    }
+
+    private void writeComment(String text, int depth) {
+        if (text.indexOf('\n') < 0) {
+            writeLine("// " + text, depth);
+        } else {
+            writeLine("/*", depth);
+            for (String line : text.split("\n", -1)) {
+                writeLine(line, depth);
+            }
+            writeLine("*/", depth);
+        }
+    }
+
+    private void writeLine(String text, int depth) {
+        out.setDepth(depth);
+        out.indentation().append(text).append('\n');
+    }
+
+    private static boolean isDeclarative(Block stage) {
+        for (Statement statement : stage.getStatements()) {
+            if (!statement.isDeclarative()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasSteps(Block block) {
+        for (Statement statement : block.getStatements()) {
+            if (statement instanceof Step || (statement instanceof Block
+                    && (((Block) statement).getKind() != Block.Kind.SEQUENCE || hasSteps((Block) statement)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Statement> flatten(Block block) {
+        List<Statement> statements = new ArrayList<>();
+        for (Statement statement : block.getStatements()) {
+            if (statement instanceof Block && ((Block) statement).getKind() == Block.Kind.SEQUENCE) {
+                statements.addAll(flatten((Block) statement));
+            } else {
+                statements.add(statement);
+            }
+        }
+        return statements;
+    }
+
+    private static String label(Block node) {
+        return node.getName() == null ? "" : node.getName();
+    }
+
+    private static String agent(String label) {
+        return label == null ? "agent any" : "agent { label '" + label + "' }";
+    }
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.pipeline;
+
+/**
+ * Single statement of the pipeline script, either a pipeline step such as <code>sh '''make'''</code>
+ * or Groovy code such as <code>def nodeHome = tool 'node'</code>.
+ * A step may span several lines; lines after the first belong to a string literal, e.g. a shell script,
+ * and are written exactly as given. Every line of code is indented instead.
+ *
+ * @author Mohit Dharamshi
+ */
+public class Step extends Statement {
+
+    private final String text;
+    private final boolean code;
+
+    private Step(String text, boolean code) {
+        this.text = text;
+        this.code = code;
+    }
+
+    /**
+     * @param text Pipeline step; lines after the first are written as they are.
+     * @return New step.
+     */
+    public static Step of(String text) {
+        return new Step(text, false);
+    }
+
+    /**
+     * @param name Name of the pipeline step.
+     * @param arguments Named arguments of the step.
+     * @return New step such as <code>junit testResults: '**&#47;TEST-*.xml'</code>.
+     */
+    public static Step of(String name, Arguments arguments) {
+        return new Step(arguments.isEmpty() ? name + "()" : name + " " + arguments, false);
+    }
+
+    /**
+     * @param text Groovy code; every line is indented.
+     * @return New step.
+     */
+    public static Step code(String text) {
+        return new Step(text, true);
+    }
+
+    /**
+     * @return Text of the step.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return True if the step is Groovy code rather than a pipeline step.
+     */
+    public boolean isCode() {
+        return code;
+    }
+
+    @Override
+    public boolean isDeclarative() {
+        return !code;
+    }
+}
@@ -17,6 +17,9 @@
 
 package com.infostretch.labs.plugins;
 
+import com.infostretch.labs.pipeline.Arguments;
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.pipeline.Step;
 import com.infostretch.labs.transformers.Transformer;
 import org.w3c.dom.Node;
 
@@ -33,7 +36,12 @@ public class AnsiblePlaybookBuilder extends Plugins {
 
     @Override
     public void transformBuild() {
-        appendBuildSteps("\t\t// Ansible playbook");
-        appendBuildSteps("\nansiblePlaybook colorized: "+getElementByTag("colorizedOutput").getTextContent()+", installation: '"+getElementByTag("ansibleName").getTextContent()+"', inventory: '"+getElementByTag("inventory").getTextContent().trim()+"', playbook: '"+getElementByTag("playbook").getTextContent()+"', sudoUser: null\n");
+        addBuildStep(new Comment("Ansible playbook"));
+        addBuildStep(Step.of("ansiblePlaybook", new Arguments()
+                .add("colorized", getElementByTag("colorizedOutput").getTextContent())
+                .addQuoted("installation", getElementByTag("ansibleName").getTextContent())
+                .addQuoted("inventory", getElementByTag("inventory").getTextContent().trim())
+                .addQuoted("playbook", getElementByTag("playbook").getTextContent())
+                .add("sudoUser", "null")));
     }
 }
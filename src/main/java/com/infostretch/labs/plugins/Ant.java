@@ -17,6 +17,9 @@
 
 package com.infostretch.labs.plugins;
 
+import com.infostretch.labs.pipeline.Block;
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.pipeline.Step;
 import com.infostretch.labs.transformers.Transformer;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -36,9 +39,8 @@ public class Ant extends Plugins {
 
     @Override
     public void transformBuild() {
-        transformer.buildSteps.append("\t\t// Ant build step");
+        addBuildStep(new Comment("Ant build step"));
         StringBuffer antTargets = new StringBuffer();
-        StringBuffer withEnv = new StringBuffer();
         String ant_Name = "";
         Element targets = getElementByTag("targets");
         Element antName = getElementByTag("antName");
@@ -61,14 +63,12 @@ public class Ant extends Plugins {
         if (antName != null && !antName.getTextContent().equals("(Default)")) {
             ant_Name = antName.getTextContent();
         }
+        Block ant = Block.code("if(isUnix())").add(Step.of("sh \"ant " + antTargets + "\""))
+                .orElse(Block.code("").add(Step.of("bat \"ant " + antTargets + "\"")));
         if (ant_Name.length() > 0) {
-            withEnv.append("\"PATH+ANT=${tool '" + ant_Name + "'}/bin\"");
-        }
-
-        if (withEnv.length() > 0) {
-            appendBuildSteps("\n\twithEnv([\"PATH+ANT=${tool '" + ant_Name + "'}/bin\"]) { \n \t\t\tif(isUnix()) {\n \t\t\t\tsh \"ant " + antTargets + "\" \n\t\t\t} else { \n \t\t\t\tbat \"ant " + antTargets + "\" \n\t\t\t} \n \t\t}");
+            addBuildStep(Block.step("withEnv", "[\"PATH+ANT=${tool '" + ant_Name + "'}/bin\"]").add(ant));
         } else {
-            appendBuildSteps("\n \t\t\tif(isUnix()) {\n \t\t\t\tsh \"ant " + antTargets + "\" \n\t\t\t} else { \n \t\t\t\tbat \"ant " + antTargets + "\" \n\t\t\t}");
+            addBuildStep(ant);
         }
     }
 }
@@ -17,6 +17,9 @@
 
 package com.infostretch.labs.plugins;
 
+import com.infostretch.labs.pipeline.Arguments;
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.pipeline.Step;
 import com.infostretch.labs.transformers.Transformer;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -34,8 +37,7 @@ public class ArtifactArchiver extends Plugins {
 
     @Override
     public void transformPublisher() {
-        transformer.publishSteps.append("\n\t\t// Artifact Archiver");
-        String excludesValues = "";
+        addPublishStep(new Comment("Artifact Archiver"));
         Element artifacts = getElementByTag("artifacts");
         Element excludes = getElementByTag("excludes");
         Element allowEmptyArchive = getElementByTag("allowEmptyArchive");
@@ -44,13 +46,16 @@ public class ArtifactArchiver extends Plugins {
         Element defaultExcludes = getElementByTag("defaultExcludes");
         Element caseSensitive = getElementByTag("caseSensitive");
 
+        Arguments archiveParams = new Arguments()
+                .add("allowEmptyArchive", allowEmptyArchive.getTextContent())
+                .addQuoted("artifacts", artifacts.getTextContent())
+                .add("caseSensitive", caseSensitive.getTextContent())
+                .add("defaultExcludes", defaultExcludes.getTextContent());
         if (excludes != null && excludes.getTextContent().length() > 0) {
-            excludesValues = excludes.getTextContent();
-        }
-        if (excludesValues.length() > 0) {
-            appendBuildSteps("\n\t\tarchiveArtifacts allowEmptyArchive: " + allowEmptyArchive.getTextContent() + ", artifacts: '" + artifacts.getTextContent() + "', caseSensitive: " + caseSensitive.getTextContent() + ", defaultExcludes: " + defaultExcludes.getTextContent() + ", excludes: '" + excludesValues + "', fingerprint: " + fingerprint.getTextContent() + ", onlyIfSuccessful: " + onlyIfSuccessful.getTextContent() + "");
-        } else {
-            appendBuildSteps("\n\t\tarchiveArtifacts allowEmptyArchive: " + allowEmptyArchive.getTextContent() + ", artifacts: '" + artifacts.getTextContent() + "', caseSensitive: " + caseSensitive.getTextContent() + ", defaultExcludes: " + defaultExcludes.getTextContent() + ", fingerprint: " + fingerprint.getTextContent() + ", onlyIfSuccessful: " + onlyIfSuccessful.getTextContent() + "");
+            archiveParams.addQuoted("excludes", excludes.getTextContent());
         }
+        archiveParams.add("fingerprint", fingerprint.getTextContent())
+                .add("onlyIfSuccessful", onlyIfSuccessful.getTextContent());
+        addBuildStep(Step.of("archiveArtifacts", archiveParams));
     }
 }
@@ -17,6 +17,9 @@
 
 package com.infostretch.labs.plugins;
 
+import com.infostretch.labs.pipeline.Block;
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.pipeline.Step;
 import com.infostretch.labs.transformers.Transformer;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -34,16 +37,18 @@ public class BatchFile extends Plugins{
 
     @Override
     public void transformBuild() {
-        appendBuildSteps("\t\t// Batch build step");
+        addBuildStep(new Comment("Batch build step"));
         Element unstableReturn = getElementByTag("unstableReturn");
         String unstableValue = "";
         if (unstableReturn != null && unstableReturn.getTextContent() != null) {
             unstableValue = unstableReturn.getTextContent();
         }
         if (unstableValue.length() > 0) {
-            appendBuildSteps("\n{ \n def batchReturnStatus = bat returnStatus: true, script: \"\"\" \n" + getElementByTag("command").getTextContent().trim() + " \n \"\"\" \n if(batchReturnStatus == " + unstableValue + ") { currentBuild.result = 'UNSTABLE' } \n}");
+            addBuildStep(Block.code("")
+                    .add(Step.of("def batchReturnStatus = bat returnStatus: true, script: \"\"\" \n" + getElementByTag("command").getTextContent().trim() + " \n \"\"\""))
+                    .add(Step.code("if(batchReturnStatus == " + unstableValue + ") { currentBuild.result = 'UNSTABLE' }")));
         } else {
-            appendBuildSteps("\nbat \"\"\" \n" + getElementByTag("command").getTextContent().trim() + " \n \"\"\"");
+            addBuildStep(Step.of("bat \"\"\" \n" + getElementByTag("command").getTextContent().trim() + " \n \"\"\""));
         }
     }
 }
@@ -17,6 +17,8 @@
 
 package com.infostretch.labs.plugins;
 
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.pipeline.Step;
 import com.infostretch.labs.transformers.Transformer;
 import org.w3c.dom.Node;
 
@@ -33,7 +35,7 @@ public class CheckStylePublisher extends Plugins {
 
     @Override
     public void transformPublisher() {
-        appendBuildSteps("\n\t\t// Checkstyle report");
-        appendBuildSteps("\n\t\tstep([$class: 'CheckStylePublisher', canComputeNew: "+!Boolean.valueOf(getElementByTag("dontComputeNew").getTextContent())+", defaultEncoding: '', healthy: '90', pattern: '"+getElementByTag("pattern").getTextContent()+"', unHealthy: '40'])");
+        addBuildStep(new Comment("Checkstyle report"));
+        addBuildStep(Step.of("step([$class: 'CheckStylePublisher', canComputeNew: "+!Boolean.valueOf(getElementByTag("dontComputeNew").getTextContent())+", defaultEncoding: '', healthy: '90', pattern: '"+getElementByTag("pattern").getTextContent()+"', unHealthy: '40'])"));
     }
 }
@@ -17,12 +17,19 @@
 
 package com.infostretch.labs.plugins;
 
+import com.infostretch.labs.pipeline.Step;
 import com.infostretch.labs.transformers.Transformer;
+import com.infostretch.labs.utils.GitMirror;
 import com.infostretch.labs.utils.SCMUtil;
 import org.eclipse.jgit.api.*;
-import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -30,7 +37,8 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import java.io.File;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
@@ -40,6 +48,13 @@ import java.util.logging.Logger;
 public class Git extends Plugins {
     private static final Logger logger = Logger.getLogger(Git.class.getName());
 
+    /**
+     * Number of times the Jenkinsfile commit is replayed on the new branch tip when the push is rejected
+     * because the branch moved on the remote. Tuned with the system property
+     * <code>com.infostretch.labs.plugins.Git.pushAttempts</code> (default 5).
+     */
+    private static final int PUSH_ATTEMPTS = Math.max(1, Integer.getInteger(Git.class.getName() + ".pushAttempts", 5));
+
     public Git(Transformer transformer, Node node) {
         super(transformer, node);
     }
@@ -68,7 +83,7 @@ public class Git extends Plugins {
         }
 
         if(!repoURL.equalsIgnoreCase(transformer.previousUrl)) {
-            transformer.appendToScript(transformer.currentJobName+ " - Checkout", "checkout([$class: 'GitSCM', branches: [[name: '" + branch + "']], doGenerateSubmoduleConfigurations: false, extensions: [], submoduleCfg: [], userRemoteConfigs: [[credentialsId: '" + repoCredentials + "', url: '" + repoURL + "']]])");
+            transformer.appendStage(transformer.currentJobName + " - Checkout", Step.of("checkout([$class: 'GitSCM', branches: [[name: '" + branch + "']], doGenerateSubmoduleConfigurations: false, extensions: [], submoduleCfg: [], userRemoteConfigs: [[credentialsId: '" + repoCredentials + "', url: '" + repoURL + "']]])"));
         }
 
         if(transformer.firstJob) {
@@ -80,38 +95,91 @@ public class Git extends Plugins {
     }
 
     @Override
-    public void pushJenkinsfile(File workSpace, String script, String url, String branchName, String commitMessage, CredentialsProvider credentialsProvider) {
+    public void pushJenkinsfile(File directory, String script, String url, String branchName, String commitMessage, CredentialsProvider credentialsProvider) {
+        pushJenkinsfiles(directory, Collections.singletonMap(SCMUtil.JENKINSFILE, script), url, branchName, commitMessage, credentialsProvider);
+    }
+
+    @Override
+    public void pushJenkinsfiles(File directory, Map<String, String> scripts, String url, String branchName, String commitMessage, CredentialsProvider credentialsProvider) {
         try {
             if(branchName.startsWith("*/")) {
                 branchName = branchName.replaceFirst("\\*\\/*", "");
             }
-            CloneCommand cloneCommand = new CloneCommand().setCredentialsProvider(credentialsProvider).setDirectory(workSpace).setURI(url).setBranch(branchName);
-            org.eclipse.jgit.api.Git git = cloneCommand.call();
-            logger.info("Cloned repo");
-            SCMUtil.writeJenkinsfile(workSpace, script);
-            AddCommand addCommand = git.add();
-            addCommand.addFilepattern(".");
-            logger.info("Added Jenkinsfile");
-            addCommand.call();
-            CommitCommand commitCommand = git.commit();
-            commitCommand.setMessage(commitMessage);
-            commitCommand.call();
-            PushCommand pushCommand = git.push();
-            pushCommand.setCredentialsProvider(credentialsProvider).setForce(true).setPushAll();
-            logger.info("Pushing Jenkinsfile");
-            Iterator<PushResult> it = pushCommand.call().iterator();
-            if(it.hasNext()){
-                logger.info(it.next().toString());
+            GitMirror mirror = GitMirror.forUrl(new File(directory, "mirrors"), url);
+            synchronized (mirror) {
+                try (Repository mirrorRepository = mirror.open()) {
+                    for (int attempt = 1; ; attempt++) {
+                        ObjectId tip = mirror.fetch(mirrorRepository, branchName, credentialsProvider);
+                        logger.info("Fetched " + branchName + " into mirror");
+                        mirror.commit(mirrorRepository, branchName, tip, scripts, commitMessage);
+                        logger.info("Committed " + scripts.keySet());
+                        if (push(new org.eclipse.jgit.api.Git(mirrorRepository), branchName, credentialsProvider)) {
+                            break;
+                        }
+                        if (attempt == PUSH_ATTEMPTS) {
+                            throw new IllegalStateException(branchName + " kept moving on the remote, gave up after "
+                                    + attempt + " attempts");
+                        }
+                        logger.info(branchName + " moved on the remote, replaying commit on its new tip");
+                    }
+                }
             }
-            workSpace.deleteOnExit();
         } catch (Exception e) {
             logger.severe("Exception : " + e.getMessage());
-            e.printStackTrace();
+            throw new IllegalStateException("Could not push " + scripts.keySet() + " to " + url, e);
+        }
+    }
+
+    /**
+     * Pushes the branch only, as a fast-forward; the mirror may hold other branches that were fetched for earlier
+     * pushes, and commits pushed by others since the fetch must not be overwritten.
+     *
+     * @return True if the branch was pushed, false if it moved on the remote since it was fetched.
+     */
+    private boolean push(org.eclipse.jgit.api.Git git, String branchName, CredentialsProvider credentialsProvider)
+            throws GitAPIException {
+        String ref = Constants.R_HEADS + branchName;
+        PushCommand pushCommand = git.push();
+        pushCommand.setCredentialsProvider(credentialsProvider).setRemote("origin").setRefSpecs(new RefSpec(ref + ":" + ref));
+        logger.info("Pushing Jenkinsfile");
+        for (PushResult result : pushCommand.call()) {
+            for (RemoteRefUpdate update : result.getRemoteUpdates()) {
+                logger.info(update.toString());
+                if (isMoved(update)) {
+                    return false;
+                }
+                if (update.getStatus() != RemoteRefUpdate.Status.OK && update.getStatus() != RemoteRefUpdate.Status.UP_TO_DATE) {
+                    throw new IllegalStateException("Push of " + update.getRemoteName() + " rejected: " + update.getStatus()
+                            + (update.getMessage() == null ? "" : " " + update.getMessage()));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A branch that moved after it was fetched is rejected as non fast-forward by the client, but if it moves while
+     * the push is under way the server reports that it lost the race for the ref lock.
+     */
+    private static boolean isMoved(RemoteRefUpdate update) {
+        switch (update.getStatus()) {
+            case REJECTED_NONFASTFORWARD:
+            case REJECTED_REMOTE_CHANGED:
+                return true;
+            case REJECTED_OTHER_REASON:
+                return update.getMessage() != null && update.getMessage().contains("lock");
+            default:
+                return false;
         }
     }
 
     @Override
     public Element writeCPSFlow(Document dest, String scmURL, String branch, String scmCredentialsId) {
+        return writeCPSFlow(dest, scmURL, branch, scmCredentialsId, SCMUtil.JENKINSFILE);
+    }
+
+    @Override
+    public Element writeCPSFlow(Document dest, String scmURL, String branch, String scmCredentialsId, String path) {
         Element definition = dest.createElement("definition");
         definition.setAttribute("class", "org.jenkinsci.plugins.workflow.cps.CpsScmFlowDefinition");
         Element scm = dest.createElement("scm");
@@ -141,7 +209,7 @@ public class Git extends Plugins {
         scm.appendChild(branches);
 
         Element scriptPath = dest.createElement("scriptPath");
-        scriptPath.setTextContent("Jenkinsfile");
+        scriptPath.setTextContent(path);
         Element lightweight = dest.createElement("lightweight");
         lightweight.setTextContent("true");
 
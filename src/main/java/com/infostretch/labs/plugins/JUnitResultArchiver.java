@@ -17,6 +17,8 @@
 
 package com.infostretch.labs.plugins;
 
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.pipeline.Step;
 import com.infostretch.labs.transformers.Transformer;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -34,8 +36,8 @@ public class JUnitResultArchiver extends Plugins {
 
     @Override
     public void transformPublisher() {
-        appendBuildSteps("\n\t\t// JUnit Results");
+        addBuildStep(new Comment("JUnit Results"));
         Element reportFilenamePattern = getElementByTag("testResults");
-        appendBuildSteps("\n\t\tjunit '"+reportFilenamePattern.getTextContent()+"'");
+        addBuildStep(Step.of("junit '"+reportFilenamePattern.getTextContent()+"'"));
     }
 }
@@ -18,6 +18,8 @@
 package com.infostretch.labs.plugins;
 
 import com.infostretch.labs.transformers.PublisherTransformer;
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.pipeline.Step;
 import com.infostretch.labs.transformers.Transformer;
 import org.w3c.dom.Node;
 
@@ -35,7 +37,7 @@ public class Mailer extends Plugins {
     @Override
     public void transformPublisher() {
         transformer.setOnlyBuildTrigger(false);
-        appendPublishSteps("\n\t\t// Mailer notification");
-        appendPublishSteps("\n\t\tstep([$class: 'Mailer', notifyEveryUnstableBuild: " + !Boolean.valueOf(getElementByTag("dontNotifyEveryUnstableBuild").getTextContent()) + ", recipients: '" + getElementByTag("recipients").getTextContent() + "', sendToIndividuals: " + getElementByTag("sendToIndividuals").getTextContent() + "])\n");
+        addPublishStep(new Comment("Mailer notification"));
+        addPublishStep(Step.of("step([$class: 'Mailer', notifyEveryUnstableBuild: " + !Boolean.valueOf(getElementByTag("dontNotifyEveryUnstableBuild").getTextContent()) + ", recipients: '" + getElementByTag("recipients").getTextContent() + "', sendToIndividuals: " + getElementByTag("sendToIndividuals").getTextContent() + "])"));
     }
 }
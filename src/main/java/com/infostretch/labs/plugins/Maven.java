@@ -17,6 +17,10 @@
 
 package com.infostretch.labs.plugins;
 
+import com.infostretch.labs.pipeline.Arguments;
+import com.infostretch.labs.pipeline.Block;
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.pipeline.Step;
 import com.infostretch.labs.transformers.Transformer;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -36,12 +40,11 @@ public class Maven extends Plugins {
 
     @Override
     public void transformBuild() {
-        appendBuildSteps("\t\t// Maven build step");
+        addBuildStep(new Comment("Maven build step"));
         Element settingsPath = null;
         Element globalSettingsPath = null;
-        StringBuffer mvnParams = new StringBuffer();
+        Arguments mvnParams = new Arguments();
         StringBuffer mvnTargets = new StringBuffer();
-        String mavenParams = "";
         Element targets  = getElementByTag("targets");
         Element mavenName = getElementByTag("mavenName");
         Element jvmOptions = getElementByTag("jvmOptions");
@@ -59,22 +62,22 @@ public class Maven extends Plugins {
             globalSettingsPath = getElementByTag(globalSettings, "path");
         }
         if (transformer.jdk != null && !transformer.jdk.getTextContent().equals("(System)")) {
-            mvnParams.append(" jdk: '" + transformer.jdk.getTextContent() + "',");
+            mvnParams.addQuoted("jdk", transformer.jdk.getTextContent());
         }
         if (mavenName != null) {
-            mvnParams.append(" maven: '" + mavenName.getTextContent() + "',");
+            mvnParams.addQuoted("maven", mavenName.getTextContent());
         }
         if (jvmOptions != null) {
-            mvnParams.append(" mavenOpts: '" + jvmOptions.getTextContent() + "',");
+            mvnParams.addQuoted("mavenOpts", jvmOptions.getTextContent());
         }
         if (usePrivateRepository != null && usePrivateRepository.getTextContent().equals("true")) {
-            mvnParams.append(" mavenLocalRepo: \"$WORKSPACE/.repository\",");
+            mvnParams.add("mavenLocalRepo", "\"$WORKSPACE/.repository\"");
         }
         if (settingsPath != null) {
-            mvnParams.append(" mavenSettingsFilePath: '" + settingsPath.getTextContent() + "',");
+            mvnParams.addQuoted("mavenSettingsFilePath", settingsPath.getTextContent());
         }
         if (globalSettingsPath != null) {
-            mvnParams.append(" globalMavenSettingsFilePath: '" + globalSettingsPath.getTextContent() + "',");
+            mvnParams.addQuoted("globalMavenSettingsFilePath", globalSettingsPath.getTextContent());
         }
         if (injectBuildVariables != null) {
             // s_injectBuildVariables =
@@ -89,15 +92,8 @@ public class Maven extends Plugins {
         if (targets != null) {
             mvnTargets.append(targets.getTextContent() + " ");
         }
-        if (mvnParams.length()> 0 && String.valueOf(mvnParams.charAt(mvnParams.length() - 1)).equals(",")) {
-            mavenParams = mvnParams.substring(0, mvnParams.length() - 1).trim();
-        } else {
-            mavenParams = mvnParams.toString().trim();
-        }
-        if (mavenParams.length() > 0) {
-            appendBuildSteps("\n\twithMaven(" + mavenParams + ") { \n \t\t\tif(isUnix()) {\n \t\t\t\tsh \"mvn " + mvnTargets + "\" \n\t\t\t} else { \n \t\t\t\tbat \"mvn " + mvnTargets + "\" \n\t\t\t} \n \t\t}");
-        } else {
-            appendBuildSteps("\n\twithMaven { \n \t\t\tif(isUnix()) {\n \t\t\t\tsh \"mvn " + mvnTargets + "\" \n\t\t\t} else { \n \t\t\t\tbat \"mvn " + mvnTargets + "\" \n\t\t\t} \n \t\t}");
-        }
+        addBuildStep(Block.step("withMaven", mvnParams.isEmpty() ? null : mvnParams.toString())
+                .add(Block.code("if(isUnix())").add(Step.of("sh \"mvn " + mvnTargets + "\""))
+                        .orElse(Block.code("").add(Step.of("bat \"mvn " + mvnTargets + "\"")))));
     }
 }
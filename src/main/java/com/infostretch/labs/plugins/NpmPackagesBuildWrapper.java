@@ -17,6 +17,7 @@
 
 package com.infostretch.labs.plugins;
 
+import com.infostretch.labs.pipeline.Step;
 import com.infostretch.labs.transformers.Transformer;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -36,7 +37,7 @@ public class NpmPackagesBuildWrapper extends Plugins {
     public void transformBuildWrapper() {
         Element nodeJS = getElementByTag("nodeJSInstallationName");
         if(nodeJS != null) {
-            appendBuildSteps("\ndef nodeHome = tool '"+nodeJS.getTextContent()+"'\n env.PATH=\"${env.PATH}:${nodeHome}/bin\"\n");
+            addBuildStep(Step.code("def nodeHome = tool '"+nodeJS.getTextContent()+"'\nenv.PATH=\"${env.PATH}:${nodeHome}/bin\""));
         }
     }
 }
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.plugins;
+
+import com.infostretch.labs.transformers.Transformer;
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import jenkins.model.Jenkins;
+import org.w3c.dom.Node;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Extension point for other plugins to contribute transformations.
+ * A handler maps node names, i.e. XML tags of build steps, publishers and build wrappers or SCM class names,
+ * to the {@link Plugins} subclass it creates. Handlers take precedence over the classes in the com.infostretch.labs.plugins package.
+ *
+ * @author Mohit Dharamshi
+ */
+public abstract class PluginHandler implements ExtensionPoint, PluginFactory {
+
+    /**
+     * @return Node names handled by this handler.
+     */
+    public abstract Collection<String> getNodeNames();
+
+    /**
+     * Creates the plugin that transforms one of the nodes.
+     * For SCMs this is also called with null transformer and node for non-transformation actions such as pushJenkinsfile.
+     *
+     * @param transformer Transformer instance whose variables need to be read and written to.
+     * @param node Node block from which the properties are to be read and converted.
+     * @return New plugin instance.
+     */
+    @Override
+    public abstract Plugins create(Transformer transformer, Node node);
+
+    /**
+     * All registered handlers; empty when Jenkins is not running, e.g. in unit tests.
+     *
+     * @return List of registered handlers.
+     */
+    public static List<PluginHandler> all() {
+        Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins == null) {
+            return Collections.emptyList();
+        }
+        return ExtensionList.lookup(PluginHandler.class);
+    }
+}
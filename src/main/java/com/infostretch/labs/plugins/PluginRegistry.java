@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.plugins;
+
+import com.infostretch.labs.transformers.Transformer;
+import com.infostretch.labs.utils.PluginClass;
+import com.infostretch.labs.utils.PluginIgnoredClass;
+import hudson.ExtensionList;
+import hudson.ExtensionListListener;
+import org.apache.commons.text.WordUtils;
+import org.w3c.dom.Node;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * PluginRegistry resolves node names to the factory of the plugin that transforms them and caches the outcome,
+ * including node names that are ignored or not supported, so every node name is resolved only once.
+ * Resolution order is: PluginIgnoredClass enum, registered {@link PluginHandler} extensions, PluginClass enum
+ * and finally the built-in plugin named after the last word of the node name.
+ * Plugins are created through {@link PluginFactory} constructor references, without reflection.
+ * The cache is cleared whenever handlers are added or removed, e.g. when a plugin is installed without restart.
+ *
+ * @author Mohit Dharamshi
+ */
+public final class PluginRegistry {
+
+    private static final Map<String, BuiltIn> builtIns = new HashMap<>();
+
+    static {
+        register(AnsiblePlaybookBuilder.class, AnsiblePlaybookBuilder::new);
+        register(Ant.class, Ant::new);
+        register(ArtifactArchiver.class, ArtifactArchiver::new);
+        register(BatchFile.class, BatchFile::new);
+        register(CheckStylePublisher.class, CheckStylePublisher::new);
+        register(Git.class, Git::new);
+        register(JUnitResultArchiver.class, JUnitResultArchiver::new);
+        register(Mailer.class, Mailer::new);
+        register(Maven.class, Maven::new);
+        register(NpmPackagesBuildWrapper.class, NpmPackagesBuildWrapper::new);
+        register(Shell.class, Shell::new);
+        register(TestNG.class, TestNG::new);
+    }
+
+    private static final ConcurrentMap<String, Resolution> cache = new ConcurrentHashMap<>();
+
+    private static volatile Map<String, PluginHandler> handlers;
+
+    /**
+     * Incremented by {@link #clear()}, so that a resolution looked up before clearing is not cached after it.
+     */
+    private static volatile int generation;
+
+    /**
+     * Extension list of handlers that {@link #clear()} listens to; a new one is looked up whenever Jenkins restarts.
+     */
+    private static List<PluginHandler> listened;
+
+    private PluginRegistry() {
+    }
+
+    private static void register(Class<? extends Plugins> type, PluginFactory factory) {
+        builtIns.put(type.getSimpleName(), new BuiltIn(type, factory));
+    }
+
+    /**
+     * Creates the plugin that transforms given node.
+     *
+     * @param nodeName Node name whose plugin needs to be created.
+     * @param transformer Transformer instance whose variables need to be read and written to.
+     * @param node Node block from which the properties are to be read and converted.
+     * @return New plugin instance, or null if node name is ignored or not supported.
+     */
+    public static Plugins create(String nodeName, Transformer transformer, Node node) {
+        Resolution resolution = resolve(nodeName);
+        if (resolution.factory == null) {
+            return null;
+        }
+        return resolution.factory.create(transformer, node);
+    }
+
+    /**
+     * Creates the plugin for non-transformation actions such as pushJenkinsfile.
+     *
+     * @param nodeName Node name whose plugin needs to be created.
+     * @return New plugin instance, or null if node name is ignored or not supported.
+     */
+    public static Plugins create(String nodeName) {
+        return create(nodeName, null, null);
+    }
+
+    /**
+     * @param nodeName Node name to check.
+     * @return True if node name is deliberately not transformed, see PluginIgnoredClass.
+     */
+    public static boolean isIgnored(String nodeName) {
+        return resolve(nodeName).ignored;
+    }
+
+    /**
+     * @param nodeName Node name whose class needs to be found.
+     * @return Built-in class that transforms node name or null if it is ignored, not supported or handled by an extension.
+     */
+    public static Class<? extends Plugins> getPluginClass(String nodeName) {
+        return resolve(nodeName).pluginClass;
+    }
+
+    /**
+     * Forgets resolved node names and handlers, e.g. after plugins providing handlers have been installed.
+     */
+    public static synchronized void clear() {
+        generation++;
+        handlers = null;
+        cache.clear();
+    }
+
+    private static Resolution resolve(String nodeName) {
+        Resolution resolution = cache.get(nodeName);
+        if (resolution == null) {
+            int lookedUp = generation;
+            resolution = lookup(nodeName);
+            synchronized (PluginRegistry.class) {
+                if (lookedUp == generation) {
+                    Resolution previous = cache.putIfAbsent(nodeName, resolution);
+                    if (previous != null) {
+                        resolution = previous;
+                    }
+                }
+            }
+        }
+        return resolution;
+    }
+
+    private static Resolution lookup(String nodeName) {
+        if (PluginIgnoredClass.searchByValue(nodeName) != null) {
+            return Resolution.IGNORED;
+        }
+        PluginHandler handler = getHandlers().get(nodeName);
+        if (handler != null) {
+            return new Resolution(null, handler);
+        }
+        PluginClass pluginClass = PluginClass.searchByTag(nodeName);
+        String pluginName;
+        if (pluginClass == null) {
+            pluginName = WordUtils.capitalize(nodeName.substring(nodeName.lastIndexOf('.') + 1));
+        } else {
+            pluginName = pluginClass.toString();
+        }
+        BuiltIn builtIn = builtIns.get(pluginName);
+        if (builtIn != null) {
+            return new Resolution(builtIn.type, builtIn.factory);
+        }
+        return Resolution.UNSUPPORTED;
+    }
+
+    private static Map<String, PluginHandler> getHandlers() {
+        Map<String, PluginHandler> result = handlers;
+        if (result == null) {
+            synchronized (PluginRegistry.class) {
+                result = handlers;
+                if (result == null) {
+                    result = loadHandlers();
+                    handlers = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, PluginHandler> loadHandlers() {
+        List<PluginHandler> all = PluginHandler.all();
+        if (all instanceof ExtensionList && all != listened) {
+            // Listen before reading the handlers so that no change is missed.
+            ((ExtensionList<PluginHandler>) all).addListener(new ExtensionListListener() {
+                @Override
+                public void onChange() {
+                    clear();
+                }
+            });
+            listened = all;
+        }
+        Map<String, PluginHandler> result = new HashMap<>();
+        for (PluginHandler handler : all) {
+            for (String nodeName : handler.getNodeNames()) {
+                result.put(nodeName, handler);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Plugin class shipped with this plugin and its factory.
+     */
+    private static final class BuiltIn {
+        final Class<? extends Plugins> type;
+        final PluginFactory factory;
+
+        BuiltIn(Class<? extends Plugins> type, PluginFactory factory) {
+            this.type = type;
+            this.factory = factory;
+        }
+    }
+
+    /**
+     * Outcome of resolving a node name.
+     */
+    private static final class Resolution {
+        static final Resolution IGNORED = new Resolution(true);
+        static final Resolution UNSUPPORTED = new Resolution(false);
+
+        final boolean ignored;
+        final Class<? extends Plugins> pluginClass;
+        final PluginFactory factory;
+
+        private Resolution(boolean ignored) {
+            this.ignored = ignored;
+            this.pluginClass = null;
+            this.factory = null;
+        }
+
+        Resolution(Class<? extends Plugins> pluginClass, PluginFactory factory) {
+            this.ignored = false;
+            this.pluginClass = pluginClass;
+            this.factory = factory;
+        }
+    }
+}
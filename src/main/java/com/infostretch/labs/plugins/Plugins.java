@@ -17,15 +17,18 @@
 
 package com.infostretch.labs.plugins;
 
+import com.infostretch.labs.pipeline.Statement;
+import com.infostretch.labs.pipeline.Step;
 import com.infostretch.labs.transformers.Transformer;
-import com.infostretch.labs.utils.PluginClass;
-import com.infostretch.labs.utils.PluginIgnoredClass;
-import org.apache.commons.text.WordUtils;
+import com.infostretch.labs.utils.SCMUtil;
+import com.infostretch.labs.utils.TagIndex;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import java.io.File;
+import java.util.Map;
+import java.util.logging.Logger;
 
 /**
  * Super class for plugins. This class is extended by every plugin whose transformation support is to be added.
@@ -34,6 +37,7 @@ import java.io.File;
  * @author Mohit Dharamshi
  */
 public abstract class Plugins {
+    private static final Logger logger = Logger.getLogger(Plugins.class.getName());
 
     /**
      * Transformer instance whose variables need to be read and written to.
@@ -86,16 +90,39 @@ public abstract class Plugins {
 
     /**
      * Method to be overridden by subclass when pushing Jenkinsfile.
-     * Clone the repo, add Jenkinsfile and push to SCM.
+     * Add Jenkinsfile to the repo and push to SCM. Pushes may run concurrently,
+     * so any state kept between pushes has to be locked by the subclass.
+     * A failed push throws an unchecked exception so that it can be retried.
+     * SCMs that can commit files without a clone are better supported by a
+     * {@link com.infostretch.labs.utils.JenkinsfilePusher}, which takes precedence over this method.
      *
-     * @param workSpace The temporary workspace where the repo will be cloned.
+     * @param directory Directory of this plugin, in which repositories may be kept between pushes.
      * @param script Groovy script to be written in Jenkinsfile.
      * @param url URL of SCM repository where Jenkinsfile is to be pushed.
      * @param branchName Branch of SCM where Jenkinsfile is to be pushed.
      * @param commitMessage Commit message to be included in commit when pushing Jenkinsfile.
      * @param credentialsProvider Credentials to use for clone and push operations.
      */
-    public void pushJenkinsfile(File workSpace, String script, String url, String branchName, String commitMessage, CredentialsProvider credentialsProvider){}
+    public void pushJenkinsfile(File directory, String script, String url, String branchName, String commitMessage, CredentialsProvider credentialsProvider){}
+
+    /**
+     * Method to be overridden by subclass when pushing several Jenkinsfiles in one commit.
+     * By default only a Jenkinsfile at the root of the repo is pushed, with {@link #pushJenkinsfile}.
+     *
+     * @param directory Directory of this plugin, in which repositories may be kept between pushes.
+     * @param scripts Groovy scripts by path of the Jenkinsfile they are written to, relative to the root of the repo.
+     * @param url URL of SCM repository where Jenkinsfiles are to be pushed.
+     * @param branchName Branch of SCM where Jenkinsfiles are to be pushed.
+     * @param commitMessage Commit message to be included in commit when pushing Jenkinsfiles.
+     * @param credentialsProvider Credentials to use for clone and push operations.
+     */
+    public void pushJenkinsfiles(File directory, Map<String, String> scripts, String url, String branchName, String commitMessage, CredentialsProvider credentialsProvider) {
+        if (scripts.size() == 1 && scripts.containsKey(SCMUtil.JENKINSFILE)) {
+            pushJenkinsfile(directory, scripts.get(SCMUtil.JENKINSFILE), url, branchName, commitMessage, credentialsProvider);
+        } else {
+            logger.warning(getClass().getSimpleName() + " cannot push Jenkinsfiles " + scripts.keySet());
+        }
+    }
 
     /**
      * Write CPS Flow XML structure for SCM type defined.
@@ -111,13 +138,29 @@ public abstract class Plugins {
         return null;
     }
 
+    /**
+     * Write CPS Flow XML structure for SCM type defined, for a Jenkinsfile that is not at the root of the repo.
+     * By default the path is ignored.
+     *
+     * @param dest Document object in which the new XML elements are to be defined.
+     * @param scmURL URL of SCM where new pipeline job will point for Jenkinsfile.
+     * @param branchName Branch name of SCM where new pipeline job will point for Jenkinsfile.
+     * @param scmCredentialsId Credentials id to use to checkout Jenkinsfile by new pipeline job.
+     * @param scriptPath Path of the Jenkinsfile relative to the root of the repo.
+     *
+     * @return Element object definition with XML
+     */
+    public Element writeCPSFlow(Document dest, String scmURL, String branchName, String scmCredentialsId, String scriptPath) {
+        return writeCPSFlow(dest, scmURL, branchName, scmCredentialsId);
+    }
+
     /**
      * Helper method to extract Element by tag name from node initialised by constructor.
      * @param tag Tag name to find in node.
      * @return Element object extracted from node.
      */
     protected final Element getElementByTag(String tag) {
-        return (Element) ((Element) node).getElementsByTagName(tag).item(0);
+        return TagIndex.getFirstElement(node, tag);
     }
 
     /**
@@ -127,57 +170,60 @@ public abstract class Plugins {
      * @return Element object extracted from node.
      */
     protected final Element getElementByTag(Node node, String tag) {
-        return (Element) ((Element) node).getElementsByTagName(tag).item(0);
+        return TagIndex.getFirstElement(node, tag);
+    }
+
+    /**
+     * Helper method to add a statement to buildSteps in transformer.
+     * @param statement Statement to be added to build steps.
+     */
+    protected final void addBuildStep(Statement statement) {
+        transformer.buildSteps.add(statement);
+    }
+
+    /**
+     * Helper method to add a statement to publishSteps in transformer.
+     * @param statement Statement to be added to publish steps.
+     */
+    protected final void addPublishStep(Statement statement) {
+        transformer.publishSteps.add(statement);
     }
 
     /**
      * Helper method to append string to buildSteps in transformer.
-     * @param string String to be appended to build steps.
+     * @param string Groovy code to be appended to build steps.
+     * @deprecated Use {@link #addBuildStep(Statement)}.
      */
+    @Deprecated
     protected final void appendBuildSteps(String string) {
-        transformer.buildSteps.append(string);
+        transformer.buildSteps.add(Step.code(string.trim()));
     }
 
     /**
      * Helper method to append string to publishSteps in transformer.
-     * @param string String to be appended to publish steps.
+     * @param string Groovy code to be appended to publish steps.
+     * @deprecated Use {@link #addPublishStep(Statement)}.
      */
+    @Deprecated
     protected final void appendPublishSteps(String string) {
-        transformer.publishSteps.append(string);
+        transformer.publishSteps.add(Step.code(string.trim()));
     }
 
     /**
      * Returns Class that matches nodeName.
      * The method checks if any node nodeNames need to be ignored.
-     * For valid nodeNames; PluginClass enum is checked for known values. If found within PluginClass enum, the corresponding Class is derived.
+     * For valid nodeNames; the PluginClass enum is checked for known values.
      * If PluginClass enum does not have a valid entry; then the assumption is that the last word of the fully qualified class name in the nodeName matches a class that exists in com.infostretch.labs.plugins package.
      * If none of the above 2 scenarios suffice; then this plugin does not support the plugin that corresponds to the nodeName.
+     * Node names handled by {@link PluginHandler} extensions have no class here.
      *
      * @param nodeName The node name whose plugin class needs to be found.
      * @return Returns Class that matches nodeName.
+     * @deprecated Use {@link PluginRegistry#create(String, Transformer, Node)} which creates plugins without reflection.
      */
+    @Deprecated
     public static final Class getPluginClass(String nodeName) {
-        try {
-            PluginIgnoredClass ignoredPlugin = PluginIgnoredClass.searchByValue(nodeName);
-            if(ignoredPlugin == null) {
-                PluginClass pluginClass = PluginClass.searchByTag(nodeName);
-                String pluginName = "";
-                if(pluginClass == null) {
-                    String[] splitNodeName = nodeName.split("\\.");
-                    pluginName = "com.infostretch.labs.plugins." + WordUtils.capitalize(splitNodeName[splitNodeName.length-1]);
-                } else {
-                    pluginName = "com.infostretch.labs.plugins." + pluginClass.toString();
-                }
-                return Class.forName(pluginName);
-            }
-        }
-        catch (Error e) {
-            e.printStackTrace();
-        }
-        catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
+        return PluginRegistry.getPluginClass(nodeName);
     }
 
 }
@@ -17,6 +17,9 @@
 
 package com.infostretch.labs.plugins;
 
+import com.infostretch.labs.pipeline.Block;
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.pipeline.Step;
 import com.infostretch.labs.transformers.Transformer;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -34,7 +37,7 @@ public class Shell extends Plugins {
 
     @Override
     public void transformBuild() {
-        appendBuildSteps("\n\t\t// Shell build step");
+        addBuildStep(new Comment("Shell build step"));
         Element unstableReturn = getElementByTag("unstableReturn");
         String unstableValue = "";
         if (unstableReturn != null && unstableReturn.getTextContent() != null) {
@@ -47,10 +50,11 @@ public class Shell extends Plugins {
             command = "\n" + command;
         }
         if (unstableValue.length() > 0) {
-            appendBuildSteps("\n\t\t{\n\t\t\tdef shellReturnStatus = sh returnStatus: true, script: '''" + command +
-                    "\n'''\n\t\t\tif(shellReturnStatus == " + unstableValue + ") { currentBuild.result = 'UNSTABLE' } \n\t\t}");
+            addBuildStep(Block.code("")
+                    .add(Step.of("def shellReturnStatus = sh returnStatus: true, script: '''" + command + "\n'''"))
+                    .add(Step.code("if(shellReturnStatus == " + unstableValue + ") { currentBuild.result = 'UNSTABLE' } ")));
         } else {
-            appendBuildSteps("\n\t\tsh '''" + command + " \n'''");
+            addBuildStep(Step.of("sh '''" + command + " \n'''"));
         }
     }
 }
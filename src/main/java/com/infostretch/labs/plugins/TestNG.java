@@ -17,6 +17,9 @@
 
 package com.infostretch.labs.plugins;
 
+import com.infostretch.labs.pipeline.Arguments;
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.pipeline.Step;
 import com.infostretch.labs.transformers.Transformer;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -33,9 +36,7 @@ public class TestNG extends Plugins {
 
     @Override
     public void transformPublisher() {
-        appendBuildSteps("\n\t\t// TestNG Results");
-        String testNG_Params = "";
-        StringBuffer testNGParams = new StringBuffer();
+        addBuildStep(new Comment("TestNG Results"));
         Element reportFilenamePattern = getElementByTag("reportFilenamePattern");
         Element escapeTestDescp = getElementByTag("escapeTestDescp");
         Element escapeExceptionMsg = getElementByTag("escapeExceptionMsg");
@@ -47,28 +48,26 @@ public class TestNG extends Plugins {
         Element failedFails = getElementByTag("failedFails");
         Element thresholdMode = getElementByTag("thresholdMode");
 
+        Arguments testNGParams = new Arguments()
+                .add("$class", "'Publisher'")
+                .add("escapeExceptionMsg", escapeExceptionMsg.getTextContent())
+                .add("escapeTestDescp", escapeTestDescp.getTextContent())
+                .add("failureOnFailedTestConfig", failureOnFailedTestConfig.getTextContent())
+                .addQuoted("reportFilenamePattern", reportFilenamePattern.getTextContent())
+                .add("showFailedBuilds", showFailedBuilds.getTextContent())
+                .add("thresholdMode", thresholdMode.getTextContent());
         if (unstableSkips != null && unstableSkips.getTextContent().length() > 0) {
-            testNGParams.append("unstableSkips: " + unstableSkips.getTextContent() + ", ");
+            testNGParams.add("unstableSkips", unstableSkips.getTextContent());
         }
         if (failedSkips != null && failedSkips.getTextContent().length() > 0) {
-            testNGParams.append("failedSkips: " + failedSkips.getTextContent() + ", ");
+            testNGParams.add("failedSkips", failedSkips.getTextContent());
         }
         if (unstableFails != null && unstableFails.getTextContent().length() > 0) {
-            testNGParams.append("unstableFails: " + unstableFails.getTextContent() + ", ");
+            testNGParams.add("unstableFails", unstableFails.getTextContent());
         }
         if (failedFails != null && failedFails.getTextContent().length() > 0) {
-            testNGParams.append("failedFails: " + failedFails.getTextContent());
-        }
-
-        if (String.valueOf(testNGParams.charAt(testNGParams.length() - 1)).equals(",")) {
-            testNG_Params = testNGParams.substring(0, testNGParams.length() - 1).trim();
-        } else {
-            testNG_Params = testNGParams.toString().trim();
-        }
-        if (testNG_Params.length() > 0) {
-            appendBuildSteps("\n\t\tstep([$class: 'Publisher', escapeExceptionMsg: " + escapeExceptionMsg.getTextContent() + ", escapeTestDescp: " + escapeTestDescp.getTextContent() + ", failureOnFailedTestConfig: " + failureOnFailedTestConfig.getTextContent() + ", reportFilenamePattern: '" + reportFilenamePattern.getTextContent() + "', showFailedBuilds: " + showFailedBuilds.getTextContent() + ", thresholdMode: " + thresholdMode.getTextContent() + ", " + testNG_Params + "])");
-        } else {
-            appendBuildSteps("\n\t\tstep([$class: 'Publisher', escapeExceptionMsg: " + escapeExceptionMsg.getTextContent() + ", escapeTestDescp: " + escapeTestDescp.getTextContent() + ", failureOnFailedTestConfig: " + failureOnFailedTestConfig.getTextContent() + ", reportFilenamePattern: '" + reportFilenamePattern.getTextContent() + "', showFailedBuilds: " + showFailedBuilds.getTextContent() + ", thresholdMode: " + thresholdMode.getTextContent() + "])");
+            testNGParams.add("failedFails", failedFails.getTextContent());
         }
+        addBuildStep(Step.of("step([" + testNGParams + "])"));
     }
 }
@@ -17,14 +17,15 @@
 
 package com.infostretch.labs.transformers;
 
+import com.infostretch.labs.pipeline.Block;
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.plugins.PluginRegistry;
 import com.infostretch.labs.plugins.Plugins;
-import com.infostretch.labs.utils.PluginIgnoredClass;
+import com.infostretch.labs.utils.TagIndex;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import java.lang.reflect.Constructor;
-
 /**
  * BuilderTransformer handles the conversion of build steps in
  * FreeStyle job configuration to pipeline Job configuration.
@@ -49,33 +50,28 @@ public class BuilderTransformer {
      */
     public void convertBuilders() {
 
-        if (transformer.doc.getElementsByTagName("builders").getLength() > 0) {
-            Element builders = (Element) transformer.doc.getElementsByTagName("builders").item(0);
+        Element builders = TagIndex.getFirstElement(transformer.doc, "builders");
+        if (builders != null) {
             transformer.buildersList = builders.getChildNodes();
-            transformer.buildSteps = new StringBuffer();
-            if (transformer.buildersList.getLength() > 0) {
-                transformer.buildSteps.append("\n\tstage ('"+transformer.currentJobName+" - Build') {\n \t");
-            }
-            transformer.jdk = (Element) transformer.doc.getElementsByTagName("jdk").item(0);
+            transformer.buildStage = transformer.buildersList.getLength() > 0
+                    ? Block.stage(transformer.currentJobName + " - Build") : Block.sequence();
+            transformer.buildSteps = transformer.buildStage;
+            transformer.jdk = TagIndex.getFirstElement(transformer.doc, "jdk");
             if (transformer.jdk != null && !transformer.jdk.getTextContent().equals("(System)")) {
-                transformer.buildSteps.append("\nwithEnv([\"JAVA_HOME=${ tool '\"+JDK+\"' }\", \"PATH=${env.JAVA_HOME}/bin\"]) { \n");
+                transformer.buildSteps = Block.step("withEnv", "[\"JAVA_HOME=${ tool '\"+JDK+\"' }\", \"PATH=${env.JAVA_HOME}/bin\"]");
+                transformer.buildStage.add(transformer.buildSteps);
             }
-            Element buildWrappers = (Element) transformer.doc.getElementsByTagName("buildWrappers").item(0);
+            Element buildWrappers = TagIndex.getFirstElement(transformer.doc, "buildWrappers");
             if (buildWrappers != null) {
                 NodeList buildWrappersList = buildWrappers.getChildNodes();
                 for (int i = 1; i < buildWrappersList.getLength(); i = i + 2) {
                     Node buildWrapper = buildWrappersList.item(i);
                     try {
-                        Class pluginClass = Plugins.getPluginClass(buildWrapper.getNodeName());
-                        if(pluginClass != null) {
-                            Constructor<Plugins> pluginConstructor = pluginClass.getConstructor(Transformer.class, Node.class);
-                            Plugins plugin = pluginConstructor.newInstance(transformer, buildWrapper);
+                        Plugins plugin = PluginRegistry.create(buildWrapper.getNodeName(), transformer, buildWrapper);
+                        if(plugin != null) {
                             plugin.transformBuildWrapper();
-                        } else {
-                            PluginIgnoredClass ignoredPlugin = PluginIgnoredClass.searchByValue(buildWrapper.getNodeName());
-                            if(ignoredPlugin == null) {
-                                transformer.buildSteps.append("\n// Unable to convert a build step referring to \"" + buildWrapper.getNodeName() + "\". Please verify and convert manually if required.");
-                            }
+                        } else if(!PluginRegistry.isIgnored(buildWrapper.getNodeName())) {
+                            transformer.buildSteps.add(new Comment("Unable to convert a build step referring to \"" + buildWrapper.getNodeName() + "\". Please verify and convert manually if required."));
                         }
                     } catch (Exception e) {
                         e.printStackTrace();
@@ -85,16 +81,11 @@ public class BuilderTransformer {
             for (int i = 1; i < transformer.buildersList.getLength(); i = i + 2) {
                 Node builder = transformer.buildersList.item(i);
                 try {
-                    Class pluginClass = Plugins.getPluginClass(builder.getNodeName());
-                    if(pluginClass != null) {
-                        Constructor<Plugins> pluginConstructor = pluginClass.getConstructor(Transformer.class, Node.class);
-                        Plugins plugin = pluginConstructor.newInstance(transformer, builder);
+                    Plugins plugin = PluginRegistry.create(builder.getNodeName(), transformer, builder);
+                    if(plugin != null) {
                         plugin.transformBuild();
-                    } else {
-                        PluginIgnoredClass ignoredPlugin = PluginIgnoredClass.searchByValue(builder.getNodeName());
-                        if(ignoredPlugin == null) {
-                            transformer.buildSteps.append("\n// Unable to convert a build step referring to \"" + builder.getNodeName() + "\". Please verify and convert manually if required.");
-                        }
+                    } else if(!PluginRegistry.isIgnored(builder.getNodeName())) {
+                        transformer.buildSteps.add(new Comment("Unable to convert a build step referring to \"" + builder.getNodeName() + "\". Please verify and convert manually if required."));
                     }
                 } catch (Exception e) {
                     e.printStackTrace();
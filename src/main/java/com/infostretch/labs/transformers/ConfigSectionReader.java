@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.transformers;
+
+import com.infostretch.labs.utils.XmlUtil;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.Collection;
+
+/**
+ * ConfigSectionReader reads a job configuration in a single streaming pass and keeps only the top level
+ * sections that are copied or transformed, e.g. "scm", "builders" and "publishers".
+ * Only these sections are built as DOM, including their whitespace, comments and CDATA,
+ * so memory and parse time depend on the extracted sections rather than the whole configuration.
+ *
+ * @author Mohit Dharamshi
+ */
+public final class ConfigSectionReader {
+
+    private ConfigSectionReader() {
+    }
+
+    /**
+     * Reads given sections of a job configuration.
+     *
+     * @param in Stream of the job configuration. It is not closed.
+     * @param sections Names of top level elements to keep.
+     * @return Document whose root element is the root of the configuration with kept sections as its children.
+     * @throws XMLStreamException If the configuration is not well formed.
+     * @throws ParserConfigurationException If the document could not be created.
+     */
+    public static Document read(InputStream in, Collection<String> sections) throws XMLStreamException, ParserConfigurationException {
+        Document doc = XmlUtil.newDocument();
+        XMLStreamReader reader = XmlUtil.createXMLStreamReader(in);
+        try {
+            reader.nextTag();
+            Element root = createElement(doc, reader);
+            doc.appendChild(root);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    if (sections.contains(reader.getLocalName())) {
+                        root.appendChild(readElement(doc, reader));
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return doc;
+    }
+
+    /**
+     * Builds the element at the current start tag, with its whole sub-tree.
+     */
+    private static Element readElement(Document doc, XMLStreamReader reader) throws XMLStreamException {
+        Element section = createElement(doc, reader);
+        Node parent = section;
+        while (parent != null) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    Element element = createElement(doc, reader);
+                    parent.appendChild(element);
+                    parent = element;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    parent = parent == section ? null : parent.getParentNode();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    Node last = parent.getLastChild();
+                    if (last != null && last.getNodeType() == Node.TEXT_NODE) {
+                        last.setNodeValue(last.getNodeValue() + reader.getText());
+                    } else {
+                        parent.appendChild(doc.createTextNode(reader.getText()));
+                    }
+                    break;
+                case XMLStreamConstants.CDATA:
+                    parent.appendChild(doc.createCDATASection(reader.getText()));
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    parent.appendChild(doc.createComment(reader.getText()));
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    parent.appendChild(doc.createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return section;
+    }
+
+    /**
+     * Skips the element at the current start tag without keeping any of it.
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static Element createElement(Document doc, XMLStreamReader reader) {
+        Element element = doc.createElement(reader.getLocalName());
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+        return element;
+    }
+}
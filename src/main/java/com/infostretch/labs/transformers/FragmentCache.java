@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.transformers;
+
+import com.infostretch.labs.pipeline.Block;
+import com.infostretch.labs.plugins.PluginHandler;
+import com.infostretch.labs.utils.DomInputStream;
+import com.infostretch.labs.utils.XmlUtil;
+import hudson.Extension;
+import hudson.PluginWrapper;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+import jenkins.model.Jenkins;
+import org.apache.commons.io.IOUtils;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * FragmentCache keeps the fragment of each converted job on disk, so that converting a job again,
+ * alone or as part of a downstream chain, skips parsing and transforming it as long as its config.xml is unchanged.
+ * An entry is valid for the SHA-256 hash of the plugin version, the installed {@link PluginHandler} extensions,
+ * the job name and the content of config.xml;
+ * there is a single entry per job which is replaced whenever the job is transformed again.
+ * Entries of deleted, renamed or moved jobs are evicted, and the least recently used entries are deleted
+ * once the entries take more than the maximum size.
+ *
+ * @author Mohit Dharamshi
+ */
+public class FragmentCache {
+    private static final Logger logger = Logger.getLogger(FragmentCache.class.getName());
+
+    private static final String PLUGIN = "convert-to-pipeline";
+
+    /**
+     * Maximum size in bytes of the entries of the default cache, set with the system property
+     * <code>com.infostretch.labs.transformers.FragmentCache.maxSize</code>; 64 MB by default.
+     */
+    private static final long MAX_SIZE = Long.getLong(FragmentCache.class.getName() + ".maxSize", 64L * 1024 * 1024);
+
+    private final File directory;
+    private final String version;
+    private final long maxSize;
+
+    /**
+     * Fragment as it is written to disk; the flow definition is kept as XML text.
+     */
+    private static class Entry {
+        String key;
+        String jobName;
+        String label;
+        String scmUrl;
+        Block checkout;
+        Block body;
+        String flowDefinition;
+        String scmType, scmURL, scmBranch, scmCredentialsId;
+    }
+
+    /**
+     * @param directory Directory the entries are written to.
+     * @param version Version of the plugin; entries written by other versions are not used.
+     * @param maxSize Maximum size in bytes of the entries in the directory.
+     */
+    public FragmentCache(File directory, String version, long maxSize) {
+        this.directory = directory;
+        this.version = version;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return Cache under the plugin's directory in JENKINS_HOME, or null if Jenkins is not running.
+     */
+    public static FragmentCache getDefault() {
+        Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins == null) {
+            return null;
+        }
+        PluginWrapper plugin = jenkins.getPluginManager().getPlugin(PLUGIN);
+        String version = plugin != null ? plugin.getVersion() : FragmentCache.class.getPackage().getImplementationVersion();
+        return new FragmentCache(new File(jenkins.getRootDir(), "plugins/" + PLUGIN + "/cache"), String.valueOf(version), MAX_SIZE);
+    }
+
+    /**
+     * Wraps a job's config.xml so that its key is computed while it is read, without holding it in memory.
+     *
+     * @param jobName Full name of the job.
+     * @param config Stream of the job's config.xml.
+     * @return Stream to read the configuration from and to pass to {@link #key(DigestInputStream)}.
+     */
+    public DigestInputStream digest(String jobName, InputStream config) {
+        return new DigestInputStream(config, start(jobName));
+    }
+
+    /**
+     * Reads the rest of a configuration wrapped by {@link #digest(String, InputStream)} and computes its key.
+     *
+     * @param config Stream returned by {@link #digest(String, InputStream)}.
+     * @return Hex encoded SHA-256 hash of plugin version, handlers, job name and configuration.
+     * @throws IOException If the configuration could not be read.
+     */
+    public String key(DigestInputStream config) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (config.read(buffer) != -1) {
+            // Only the digest is needed.
+        }
+        return hex(config.getMessageDigest().digest());
+    }
+
+    private MessageDigest start(String jobName) {
+        MessageDigest digest = sha256();
+        digest.update(version.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        for (String handler : getHandlers()) {
+            digest.update(handler.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        digest.update((byte) 0);
+        digest.update(jobName.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        return digest;
+    }
+
+    /**
+     * Reads the fragment of a job if it was written for the same key.
+     *
+     * @param jobName Full name of the job.
+     * @param key Key of the job's current configuration.
+     * @return Fragment of the job, or null if there is none for the key.
+     */
+    public JobFragment get(String jobName, String key) {
+        XmlFile file = getFile(jobName);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            Entry entry = (Entry) file.read();
+            if (entry == null || !key.equals(entry.key)) {
+                return null;
+            }
+            Document dest = XmlUtil.getDocumentBuilder().parse(new InputSource(new StringReader(entry.flowDefinition)));
+            logger.fine("Using cached fragment of " + jobName);
+            // Marks the entry as recently used.
+            file.getFile().setLastModified(System.currentTimeMillis());
+            return new JobFragment(entry.jobName, entry.label, entry.scmUrl, entry.checkout, entry.body, dest,
+                    dest.getDocumentElement(), entry.scmType, entry.scmURL, entry.scmBranch, entry.scmCredentialsId);
+        } catch (Exception e) {
+            logger.warning("Unable to read cached fragment of " + jobName + ": " + e.getMessage());
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Writes the fragment of a job, replacing the previous one.
+     * It must be called before the fragment is stitched into a script, which adds the definition to its flow definition.
+     *
+     * @param key Key of the job's configuration the fragment was transformed from.
+     * @param fragment Fragment of the job.
+     */
+    public void put(String key, JobFragment fragment) {
+        Entry entry = new Entry();
+        entry.key = key;
+        entry.jobName = fragment.getJobName();
+        entry.label = fragment.getLabel();
+        entry.scmUrl = fragment.getScmUrl();
+        entry.checkout = fragment.getCheckout();
+        entry.body = fragment.getBody();
+        entry.scmType = fragment.getScmType();
+        entry.scmURL = fragment.getScmURL();
+        entry.scmBranch = fragment.getScmBranch();
+        entry.scmCredentialsId = fragment.getScmCredentialsId();
+        try {
+            entry.flowDefinition = IOUtils.toString(new DomInputStream(fragment.getDest(), false), StandardCharsets.UTF_8);
+            getFile(fragment.getJobName()).write(entry);
+        } catch (Exception e) {
+            logger.warning("Unable to cache fragment of " + fragment.getJobName() + ": " + e.getMessage());
+        }
+        prune();
+    }
+
+    /**
+     * Deletes the fragment of a job, if any.
+     *
+     * @param jobName Full name of the job.
+     */
+    public void remove(String jobName) {
+        getFile(jobName).delete();
+    }
+
+    /**
+     * Deletes the least recently used entries until the entries take no more than {@link #maxSize} bytes.
+     */
+    private synchronized void prune() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".xml"));
+        if (files == null) {
+            return;
+        }
+        long size = 0;
+        Map<File, Long> used = new HashMap<>();
+        for (File file : files) {
+            size += file.length();
+            used.put(file, file.lastModified());
+        }
+        if (size <= maxSize) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparing(used::get));
+        for (File file : files) {
+            if (size <= maxSize) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+            }
+        }
+        logger.fine("Pruned fragment cache to " + size + " bytes");
+    }
+
+    /**
+     * Handlers take part in transforming jobs, so fragments are not used once handlers are installed, upgraded or removed.
+     *
+     * @return Sorted class names of the registered handlers, each with the version of the plugin providing it if known.
+     */
+    protected List<String> getHandlers() {
+        List<String> handlers = new ArrayList<>();
+        Jenkins jenkins = Jenkins.getInstance();
+        for (PluginHandler handler : PluginHandler.all()) {
+            PluginWrapper plugin = jenkins == null ? null : jenkins.getPluginManager().whichPlugin(handler.getClass());
+            handlers.add(handler.getClass().getName() + (plugin == null ? "" : "@" + plugin.getVersion()));
+        }
+        Collections.sort(handlers);
+        return handlers;
+    }
+
+    /**
+     * Evicts the entries of jobs that are deleted, renamed or moved, since they would never be read again.
+     * Jobs deleted together with their folder are not notified; their entries are pruned once the cache is full.
+     */
+    @Extension
+    public static final class Evictor extends ItemListener {
+        @Override
+        public void onDeleted(Item item) {
+            evict(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            evict(oldFullName);
+        }
+
+        private static void evict(String jobName) {
+            FragmentCache cache = getDefault();
+            if (cache != null) {
+                cache.remove(jobName);
+            }
+        }
+    }
+
+    private XmlFile getFile(String jobName) {
+        return new XmlFile(new File(directory, hex(sha256().digest(jobName.getBytes(StandardCharsets.UTF_8))) + ".xml"));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.transformers;
+
+import com.infostretch.labs.pipeline.Block;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * JobFragment holds the result of transforming a single FreeStyle job.
+ * Fragments are produced independently of each other and stitched into the main script by Transformer,
+ * which decides on node blocks and repeated checkouts based on the previous job.
+ *
+ * @author Mohit Dharamshi
+ */
+
+public class JobFragment {
+    private final String jobName;
+    private final String label;
+    private final String scmUrl;
+    private final Block checkout;
+    private final Block body;
+    private final Document dest;
+    private final Element flowDefinition;
+    private final String scmType, scmURL, scmBranch, scmCredentialsId;
+
+    JobFragment(String jobName, String label, String scmUrl, Block checkout, Block body, Document dest,
+                Element flowDefinition, String scmType, String scmURL, String scmBranch, String scmCredentialsId) {
+        this.jobName = jobName;
+        this.label = label;
+        this.scmUrl = scmUrl;
+        this.checkout = checkout;
+        this.body = body;
+        this.dest = dest;
+        this.flowDefinition = flowDefinition;
+        this.scmType = scmType;
+        this.scmURL = scmURL;
+        this.scmBranch = scmBranch;
+        this.scmCredentialsId = scmCredentialsId;
+    }
+
+    /**
+     * @return Full name of the job.
+     */
+    public String getJobName() {
+        return jobName;
+    }
+
+    /**
+     * @return Label the job is restricted to, or null if it is not restricted.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return Repository URL checked out by the job, or null if the SCM does not track it.
+     */
+    public String getScmUrl() {
+        return scmUrl;
+    }
+
+    /**
+     * @return Checkout stage of the job.
+     */
+    public Block getCheckout() {
+        return checkout;
+    }
+
+    /**
+     * @return Build and post build stages of the job.
+     */
+    public Block getBody() {
+        return body;
+    }
+
+    /**
+     * @return Flow definition document with the configurations copied from the job.
+     */
+    public Document getDest() {
+        return dest;
+    }
+
+    public Element getFlowDefinition() {
+        return flowDefinition;
+    }
+
+    public String getScmType() {
+        return scmType;
+    }
+
+    public String getScmURL() {
+        return scmURL;
+    }
+
+    public String getScmBranch() {
+        return scmBranch;
+    }
+
+    public String getScmCredentialsId() {
+        return scmCredentialsId;
+    }
+}
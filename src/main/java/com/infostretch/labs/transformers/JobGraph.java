@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.transformers;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+
+import java.util.*;
+
+/**
+ * JobGraph is the graph of FreeStyle jobs reachable from the initial job through downstream projects.
+ * The graph is walked once, depth first, keyed by job full name: a job shared by several upstream jobs
+ * is listed only once, and downstream links that lead back into the current path are recorded as cycles
+ * instead of being followed. Jobs are listed in topological order, the reverse of the order in which their walk
+ * is finished, so a shared job comes after all of its upstream jobs; downstream jobs of one job keep their order.
+ *
+ * @author Mohit Dharamshi
+ */
+
+public class JobGraph {
+    private final List<FreeStyleProject> jobs = new ArrayList<>();
+    private final Set<String> visited = new HashSet<>();
+    private final LinkedHashSet<String> path = new LinkedHashSet<>();
+    private final List<String> cycles = new ArrayList<>();
+
+    /**
+     * Builds the graph from the initial job.
+     *
+     * @param initialJob Job from which conversion is to start.
+     * @param downStream Boolean to decide if downstream jobs are part of the graph.
+     */
+    public JobGraph(FreeStyleProject initialJob, boolean downStream) {
+        visit(initialJob, downStream);
+        Collections.reverse(jobs);
+    }
+
+    private void visit(FreeStyleProject job, boolean downStream) {
+        String name = job.getFullName();
+        visited.add(name);
+        if (!downStream) {
+            jobs.add(job);
+            return;
+        }
+        path.add(name);
+        // Walked last to first, so that the reversed order lists downstream jobs first to last.
+        List<? extends Item> downstreamProjects = job.getDownstreamProjects();
+        for (ListIterator<? extends Item> items = downstreamProjects.listIterator(downstreamProjects.size()); items.hasPrevious(); ) {
+            Item item = items.previous();
+            if (item instanceof FreeStyleProject) {
+                String downstreamName = item.getFullName();
+                if (path.contains(downstreamName)) {
+                    cycles.add(describeCycle(downstreamName));
+                } else if (!visited.contains(downstreamName)) {
+                    visit((FreeStyleProject) item, true);
+                }
+            }
+        }
+        path.remove(name);
+        jobs.add(job);
+    }
+
+    private String describeCycle(String start) {
+        StringBuilder cycle = new StringBuilder();
+        boolean inCycle = false;
+        for (String name : path) {
+            inCycle = inCycle || name.equals(start);
+            if (inCycle) {
+                cycle.append(name).append(" -> ");
+            }
+        }
+        return cycle.append(start).toString();
+    }
+
+    /**
+     * @return Distinct jobs of the graph in the order in which they are converted.
+     */
+    public List<FreeStyleProject> getJobs() {
+        return Collections.unmodifiableList(jobs);
+    }
+
+    /**
+     * @return Downstream cycles found in the graph, each as the list of job names leading back to its first job.
+     */
+    public List<String> getCycles() {
+        return Collections.unmodifiableList(cycles);
+    }
+}
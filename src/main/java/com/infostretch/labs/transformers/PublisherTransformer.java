@@ -17,16 +17,15 @@
 
 package com.infostretch.labs.transformers;
 
+import com.infostretch.labs.pipeline.Block;
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.plugins.PluginRegistry;
 import com.infostretch.labs.plugins.Plugins;
-import com.infostretch.labs.utils.PluginIgnoredClass;
-import com.infostretch.labs.utils.PluginClass;
-import org.apache.commons.text.WordUtils;
+import com.infostretch.labs.utils.TagIndex;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import java.lang.reflect.Constructor;
-
 /**
  * PublisherTransformer handles the conversion of publishers (post build actions) in
  * FreeStyle job configuration to pipeline Job configuration.
@@ -64,43 +63,37 @@ public class PublisherTransformer {
      * Such cases will have onlyBuildTrigger NOT being set to false.
      */
     protected void convertPublishers() {
-        if (transformer.doc.getElementsByTagName("publishers").getLength() > 0) {
-            Element publishers = (Element) transformer.doc.getElementsByTagName("publishers").item(0);
+        Element publishers = TagIndex.getFirstElement(transformer.doc, "publishers");
+        if (publishers != null) {
             NodeList publishersList = publishers.getChildNodes();
-            transformer.publishSteps = new StringBuffer();
             transformer.setOnlyBuildTrigger(true);
+            if (transformer.buildStage == null) {
+                // No <builders>: publishers that add build steps get an unnamed block, as for an empty <builders/>.
+                transformer.buildStage = Block.sequence();
+                transformer.buildSteps = transformer.buildStage;
+            }
             if (publishersList.getLength() > 0) {
-                transformer.publishSteps.append("\n\tstage ('"+transformer.currentJobName+" - Post build actions') {");
-                transformer.publishSteps.append("\n/*\nPlease note this is a direct conversion of post-build actions. \nIt may not necessarily work/behave in the same way as post-build actions work.\nA logic review is suggested.\n*/");
+                transformer.publishSteps = Block.stage(transformer.currentJobName + " - Post build actions");
+                transformer.publishSteps.add(new Comment("Please note this is a direct conversion of post-build actions.\nIt may not necessarily work/behave in the same way as post-build actions work.\nA logic review is suggested."));
+            } else {
+                transformer.publishSteps = Block.sequence();
             }
             for (int i = 1; i < publishersList.getLength(); i = i + 2) {
                 Node publisher = publishersList.item(i);
                 try {
-                    Class pluginClass = Plugins.getPluginClass(publisher.getNodeName());
-                    if(pluginClass != null) {
-                        Constructor<Plugins> pluginConstructor = pluginClass.getConstructor(Transformer.class, Node.class);
-                        Plugins plugin = pluginConstructor.newInstance(transformer, publisher);
+                    Plugins plugin = PluginRegistry.create(publisher.getNodeName(), transformer, publisher);
+                    if(plugin != null) {
                         plugin.transformPublisher();
                     } else {
-                        transformer.publishSteps.append("\n// Unable to convert a post-build action referring to \"" + publisher.getNodeName() + "\". Please verify and convert manually if required.");
+                        transformer.publishSteps.add(new Comment("Unable to convert a post-build action referring to \"" + publisher.getNodeName() + "\". Please verify and convert manually if required."));
                     }
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
             }
-            if (transformer.buildersList.getLength() > 0) {
-                if (transformer.jdk != null && !transformer.jdk.getTextContent().equals("(System)")) {
-                    transformer.buildSteps.append(" \n\t}\n}");
-                } else {
-                    transformer.buildSteps.append(" \n\t}");
-                }
-            }
-            transformer.appendToScript(transformer.buildSteps.toString());
-            if (publishersList.getLength() > 0) {
-                transformer.publishSteps.append(" \n\t}");
-            }
+            transformer.body.add(transformer.buildStage);
             if(!transformer.getOnlyBuildTrigger()) {
-                transformer.appendToScript(transformer.publishSteps.toString());
+                transformer.body.add(transformer.publishSteps);
             }
         }
     }
@@ -17,14 +17,12 @@
 
 package com.infostretch.labs.transformers;
 
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.plugins.PluginRegistry;
 import com.infostretch.labs.plugins.Plugins;
-import com.infostretch.labs.utils.PluginClass;
-import com.infostretch.labs.utils.PluginIgnoredClass;
-import org.apache.commons.text.WordUtils;
+import com.infostretch.labs.utils.TagIndex;
 import org.w3c.dom.Node;
 
-import java.lang.reflect.Constructor;
-
 /**
  * SCMTransformer handles the conversion of SCMs in
  * FreeStyle job configuration to pipeline Job configuration.
@@ -50,20 +48,15 @@ public class SCMTransformer {
      * Calls respective convert SCM methods to convert FreeStyle Job SCM Configurations.
      */
     protected void convertSCM() {
-        if (transformer.doc.getElementsByTagName("scm").getLength() > 0) {
-            scm = transformer.doc.getElementsByTagName("scm").item(0);
+        scm = TagIndex.getFirstElement(transformer.doc, "scm");
+        if (scm != null) {
             String scmType = scm.getAttributes().getNamedItem("class").getTextContent();
             try {
-                Class pluginClass = Plugins.getPluginClass(scmType);
-                if(pluginClass != null) {
-                    Constructor<Plugins> pluginConstructor = pluginClass.getConstructor(Transformer.class, Node.class);
-                    Plugins plugin = pluginConstructor.newInstance(transformer, scm);
+                Plugins plugin = PluginRegistry.create(scmType, transformer, scm);
+                if(plugin != null) {
                     plugin.transformSCM();
-                } else {
-                    PluginIgnoredClass ignoredPlugin = PluginIgnoredClass.searchByValue(scmType);
-                    if(ignoredPlugin == null) {
-                        transformer.appendToScript(transformer.currentJobName+ " - Checkout", "\n// Unable to convert SCM referring to \"" + scmType + "\". Please verify and convert manually if required.");
-                    }
+                } else if(!PluginRegistry.isIgnored(scmType)) {
+                    transformer.appendStage(transformer.currentJobName + " - Checkout", new Comment("Unable to convert SCM referring to \"" + scmType + "\". Please verify and convert manually if required."));
                 }
             } catch (Exception e) {
                 e.printStackTrace();
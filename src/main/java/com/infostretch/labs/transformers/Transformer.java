@@ -17,26 +17,37 @@
 
 package com.infostretch.labs.transformers;
 
+import com.infostretch.labs.pipeline.Block;
+import com.infostretch.labs.pipeline.Comment;
+import com.infostretch.labs.pipeline.PipelineOptimizer;
+import com.infostretch.labs.pipeline.ScriptEmitter;
+import com.infostretch.labs.pipeline.ScriptRenderer;
+import com.infostretch.labs.pipeline.Statement;
+import com.infostretch.labs.pipeline.Step;
+import com.infostretch.labs.plugins.PluginRegistry;
 import com.infostretch.labs.plugins.Plugins;
+import com.infostretch.labs.utils.DomInputStream;
+import com.infostretch.labs.utils.JenkinsfileBatch;
 import com.infostretch.labs.utils.SCMUtil;
+import com.infostretch.labs.utils.TagIndex;
+import com.infostretch.labs.utils.XmlUtil;
 import hudson.model.FreeStyleProject;
-import hudson.model.Item;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Constructor;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.logging.Logger;
 
 /**
@@ -49,20 +60,77 @@ import java.util.logging.Logger;
 public class Transformer {
     private static final Logger logger = Logger.getLogger(Transformer.class.getName());
 
+    /**
+     * When set, the jobs of a downstream chain are parsed and transformed in parallel on a fork-join pool.
+     * Enabled with the system property <code>com.infostretch.labs.transformers.Transformer.parallel</code>
+     * or per conversion with the "parallel" request parameter of convert, preview and bulk conversion.
+     */
+    private static final boolean PARALLEL = Boolean.getBoolean(Transformer.class.getName() + ".parallel");
+
+    /**
+     * Number of threads used for parallel transformation, defaults to number of processors.
+     */
+    private static final int PARALLELISM = Math.max(1, Integer.getInteger(Transformer.class.getName() + ".parallelism",
+            Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * When set, the XML of new jobs is indented. It is written without indentation by default,
+     * which keeps bulk conversions cheap since Jenkins formats config.xml anyway once the job is saved.
+     * Enabled with the system property <code>com.infostretch.labs.transformers.Transformer.prettyPrint</code>
+     * or per conversion with the "prettyPrint" request parameter of convert, preview and bulk conversion.
+     */
+    private static final boolean PRETTY_PRINT = Boolean.getBoolean(Transformer.class.getName() + ".prettyPrint");
+
+    /**
+     * When set, fragments of converted jobs are cached on disk and reused while their config.xml is unchanged.
+     * Disabled by default; enabled with the system property <code>com.infostretch.labs.transformers.Transformer.cache</code>
+     * set to true or per conversion with the "cache" request parameter of convert, preview and bulk conversion.
+     */
+    private static final boolean CACHE = Boolean.getBoolean(Transformer.class.getName() + ".cache");
+
+    /**
+     * Top level configurations that are read from config.xml of a job, the rest is skipped while parsing.
+     */
+    static final List<String> SECTIONS = Collections.unmodifiableList(Arrays.asList("description", "properties", "triggers",
+            "assignedNode", "scm", "jdk", "builders", "publishers", "buildWrappers"));
+
     private InputStream is;
     private Element flowDefinition;
+    /**
+     * Inline script element of the new job, whose text is set from the script once the XML is read.
+     */
+    private Element inlineScript;
+    /**
+     * Script of the whole conversion, rendered once it is needed as a String.
+     */
+    private String content;
+    /**
+     * Path of the Jenkinsfile to commit once the new job has been created, or null if the script is kept inline.
+     */
+    private String jenkinsfile;
+    private String commitMessage;
     private String scmURL ="", scmCredentialsId = "", scmType = "", scmBranch = "";
 
     protected Document doc, dest;
     public Element jdk;
     protected NodeList buildersList;
     public boolean firstJob = true;
-    public StringBuffer script, buildSteps, publishSteps;
+    public ScriptEmitter script;
+    /**
+     * Statements of the job being transformed and the blocks that plugins add their build and post build steps to.
+     */
+    public Block body, buildSteps, publishSteps;
+    /**
+     * Build stage of the job; build steps go to {@link #buildSteps}, which is nested in it if a JDK is set.
+     */
+    public Block buildStage;
     public String currentJobName = "", previousUrl = "", previousLabel = "";
     private Map<String, Object> requestParams;
     private List<String> copyConfigs = new ArrayList<>(Arrays.asList("description", "properties", "triggers"));
     private List<String> transformConfigs = new ArrayList<>(Arrays.asList("label", "scm", "builders", "publishers"));
     private boolean onlyBuildTrigger = true;
+    private String label;
+    private Block checkout, pipeline, timestamps;
 
     /**
      * Constructor to initialise variables required to process transformation.
@@ -70,7 +138,8 @@ public class Transformer {
      * @param requestParams Map that contains request parameters.
      */
     public Transformer(Map requestParams) {
-        script = new StringBuffer();
+        script = new ScriptEmitter();
+        body = Block.sequence();
         this.requestParams = requestParams;
     }
 
@@ -79,7 +148,14 @@ public class Transformer {
      */
     public void performFreeStyleTransformation() {
         initializeConversion();
-        transformJob((FreeStyleProject) requestParams.get("initialProject"), (boolean)requestParams.get("downStream"));
+        JobGraph graph = new JobGraph((FreeStyleProject) requestParams.get("initialProject"), (boolean) requestParams.get("downStream"));
+        for (String cycle : graph.getCycles()) {
+            logger.warning("Downstream cycle not followed: " + cycle);
+            timestamps.add(new Comment("Downstream cycle not followed: " + cycle));
+        }
+        for (JobFragment fragment : transformJobs(graph.getJobs()).values()) {
+            appendFragment(fragment);
+        }
         finalizeConversion((boolean) requestParams.get("commitJenkinsfile"), requestParams.get("commitMessage").toString());
         logger.info("Completed conversion of all jobs");
     }
@@ -87,54 +163,178 @@ public class Transformer {
     /** For testing pureposes */
     public String transformXml(Document doc, String jobName) throws ParserConfigurationException {
         initializeConversion();
-        this.doc = doc;
-        this.currentJobName = jobName;
-        transformDocument();
+        appendFragment(transformFragment(jobName, doc));
         finalizeConversion(false, "");
-        return script.toString();
+        return getScript();
+    }
+
+    /**
+     * For testing and benchmarking purposes; transforms a downstream chain of jobs in the given order.
+     *
+     * @param docs Configurations of the jobs.
+     * @param jobNames Names of the jobs, in the same order as configurations.
+     * @return Script of the whole chain.
+     * @throws ParserConfigurationException If a destination document could not be created.
+     */
+    public String transformXml(List<Document> docs, List<String> jobNames) throws ParserConfigurationException {
+        initializeConversion();
+        for (int i = 0; i < docs.size(); i++) {
+            appendFragment(transformFragment(jobNames.get(i), docs.get(i)));
+        }
+        finalizeConversion(false, "");
+        return getScript();
     }
 
     private void initializeConversion() {
-        appendToScript("// Powered by Infostretch \n\n");
-        appendToScript("timestamps {\n");
+        timestamps = Block.timestamps();
+        pipeline = Block.sequence().add(new Comment("Powered by Infostretch")).add(timestamps);
     }
     private void finalizeConversion(boolean commitJenkinsfile, String commitMessage) {
-        appendToScript("\n}\n}");
+        PipelineOptimizer.mergeAdjacentNodes(pipeline);
         appendScriptToXML(commitJenkinsfile, commitMessage);
         writeConfiguration();
     }
 
     /**
-     * Invokes conversion of given FreeStyle Job.
-     * This method is recursively called if downstream jobs are to be converted also.
+     * Transforms each job to a fragment of the script, once per job.
+     * In parallel mode fragments of a downstream chain are produced concurrently on a fork-join pool;
+     * either way fragments are returned in the order of the given jobs so that the script is the same.
+     *
+     * @param jobs Distinct FreeStyle jobs to convert.
+     * @return Fragments of jobs that could be transformed keyed by job full name, in the order of given jobs.
+     */
+    private Map<String, JobFragment> transformJobs(List<FreeStyleProject> jobs) {
+        Map<String, JobFragment> fragments = new LinkedHashMap<>();
+        Object parallel = requestParams.get("parallel");
+        if ((parallel instanceof Boolean ? (Boolean) parallel : PARALLEL) && jobs.size() > 1) {
+            Map<String, ForkJoinTask<JobFragment>> tasks = new LinkedHashMap<>();
+            for (final FreeStyleProject job : jobs) {
+                if (!tasks.containsKey(job.getFullName())) {
+                    tasks.put(job.getFullName(), PoolHolder.POOL.submit(() -> transformJob(job)));
+                }
+            }
+            for (Map.Entry<String, ForkJoinTask<JobFragment>> task : tasks.entrySet()) {
+                addFragment(fragments, task.getKey(), task.getValue().join());
+            }
+        } else {
+            for (FreeStyleProject job : jobs) {
+                if (!fragments.containsKey(job.getFullName())) {
+                    addFragment(fragments, job.getFullName(), transformJob(job));
+                }
+            }
+        }
+        return fragments;
+    }
+
+    private static void addFragment(Map<String, JobFragment> fragments, String jobName, JobFragment fragment) {
+        if (fragment != null) {
+            fragments.put(jobName, fragment);
+        }
+    }
+
+    /**
+     * Invokes conversion of given FreeStyle Job. Its config.xml is streamed, never read into memory as a whole:
+     * without cache it is parsed right away, otherwise it is hashed first and only parsed if the cache misses.
      *
      * @param item FreeStyle job to convert.
-     * @param downStream Boolean to decide if item's downstream jobs are to be converted.
+     * @return Fragment of the script for the job, or null if it could not be transformed.
      */
-    private void transformJob(FreeStyleProject item, boolean downStream) {
+    private JobFragment transformJob(FreeStyleProject item) {
+        File config = item.getConfigFile().getFile();
         try {
-            currentJobName = item.getFullName();
-            doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(item.getConfigFile().getFile());
-            transformDocument();
-            if (downStream) {
-                for (Item job : item.getDownstreamProjects()) {
-                    if (job instanceof FreeStyleProject) {
-                        firstJob = false;
-                        transformJob((FreeStyleProject) job, true);
-                    }
+            FragmentCache cache = getCache();
+            if (cache == null) {
+                try (InputStream in = new FileInputStream(config)) {
+                    return transformFragment(item.getFullName(), ConfigSectionReader.read(in, SECTIONS));
                 }
             }
+            String key;
+            try (DigestInputStream in = cache.digest(item.getFullName(), new FileInputStream(config))) {
+                key = cache.key(in);
+            }
+            JobFragment fragment = cache.get(item.getFullName(), key);
+            if (fragment == null) {
+                // Hashed again while parsing, so the fragment is cached for what was parsed even if config.xml just changed.
+                try (DigestInputStream in = cache.digest(item.getFullName(), new FileInputStream(config))) {
+                    fragment = transformFragment(item.getFullName(), ConfigSectionReader.read(in, SECTIONS));
+                    cache.put(cache.key(in), fragment);
+                }
+            }
+            return fragment;
         } catch (Exception e) {
             logger.severe("Exception occurred in Transformer constructor: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return Cache of job fragments, or null if caching is disabled for this conversion.
+     */
+    private FragmentCache getCache() {
+        Object cache = requestParams.get("cache");
+        if (!(cache instanceof Boolean ? (Boolean) cache : CACHE)) {
+            return null;
         }
+        return CacheHolder.CACHE;
     }
 
-    protected void transformDocument() throws ParserConfigurationException {
-        dest = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+    /**
+     * Transforms a single job configuration with a Transformer of its own, so that jobs can be transformed independently.
+     *
+     * @param jobName Full name of the job.
+     * @param config Configuration of the job.
+     * @return Fragment of the script for the job.
+     * @throws ParserConfigurationException If destination document could not be created.
+     */
+    private JobFragment transformFragment(String jobName, Document config) throws ParserConfigurationException {
+        Transformer child = new Transformer(requestParams);
+        child.currentJobName = jobName;
+        child.doc = config;
+        // The checkout is always written; whether it repeats the previous job's checkout is decided when stitching.
+        child.previousUrl = null;
+        return child.transformDocument();
+    }
+
+    protected JobFragment transformDocument() throws ParserConfigurationException {
+        dest = XmlUtil.newDocument();
         flowDefinition = dest.createElement("flow-definition");
         dest.appendChild(flowDefinition);
         doc.getDocumentElement().normalize();
         transformFile();
+        return new JobFragment(currentJobName, label, previousUrl, checkout, body, dest, flowDefinition,
+                scmType, scmURL, scmBranch, scmCredentialsId);
+    }
+
+    /**
+     * Appends the statements of a job to the pipeline in a node block of its own.
+     * A checkout is skipped if it repeats the previous job's repository;
+     * node blocks of consecutive jobs on the same label are merged before the script is rendered.
+     *
+     * @param fragment Fragment of the job to append.
+     */
+    private void appendFragment(JobFragment fragment) {
+        Block node = Block.node(fragment.getLabel());
+        if (firstJob) {
+            setScmType(fragment.getScmType());
+            setScmURL(fragment.getScmURL());
+            setScmBranch(fragment.getScmBranch());
+            setScmCredentialsId(fragment.getScmCredentialsId());
+        }
+        previousLabel = fragment.getLabel() == null ? "" : fragment.getLabel();
+        if (fragment.getScmUrl() == null) {
+            node.add(fragment.getCheckout());
+        } else {
+            if (!fragment.getScmUrl().equalsIgnoreCase(previousUrl)) {
+                node.add(fragment.getCheckout());
+            }
+            previousUrl = fragment.getScmUrl();
+        }
+        node.add(fragment.getBody());
+        timestamps.add(node);
+        currentJobName = fragment.getJobName();
+        dest = fragment.getDest();
+        flowDefinition = fragment.getFlowDefinition();
+        firstJob = false;
     }
 
     /**
@@ -143,6 +343,9 @@ public class Transformer {
      * @return InputStream of XML structure of the new pipeline job.
      */
     public InputStream getStream() {
+        if (inlineScript != null && !inlineScript.hasChildNodes()) {
+            inlineScript.setTextContent(getScript());
+        }
         return is;
     }
 
@@ -169,6 +372,8 @@ public class Transformer {
                 case "scm":
                     SCMTransformer scmTransformer = new SCMTransformer(this);
                     scmTransformer.convertSCM();
+                    checkout = body;
+                    body = Block.sequence();
                     break;
                 case "builders":
                     BuilderTransformer builderTransformer = new BuilderTransformer(this);
@@ -193,8 +398,9 @@ public class Transformer {
     private void copyConfigurations(List<String> configurations) {
         for (String configuration: configurations) {
             logger.info("Transforming configuration: " + configuration.toUpperCase());
-            if (doc.getElementsByTagName(configuration).getLength() > 0) {
-                Node destConfigNode = dest.importNode(doc.getElementsByTagName(configuration).item(0), true);
+            Element config = TagIndex.getFirstElement(doc, configuration);
+            if (config != null) {
+                Node destConfigNode = dest.importNode(config, true);
                 if(configuration.equalsIgnoreCase("properties")) {
                     NodeList propertyChildren = destConfigNode.getChildNodes();
                     for(int i=1;i<propertyChildren.getLength();i=i+2) {
@@ -212,68 +418,153 @@ public class Transformer {
     }
 
     /**
-     * Transforms label to node block.
+     * Reads label of the job. The node block itself is written when the job is appended to the main script.
      */
     private void transformLabel() {
-        String label = "";
-        if (doc.getElementsByTagName("assignedNode").getLength() > 0) {
-            label = doc.getElementsByTagName("assignedNode").item(0).getTextContent();
-            if(firstJob) {
-                appendToScript("\nnode ('" + label + "') { \n");
-            } else {
-                if(!label.equalsIgnoreCase(previousLabel)) {
-                    appendToScript("\n}\nnode ('" + label + "') { \n");
-                }
-            }
-        } else {
-            if(firstJob) {
-                appendToScript("\nnode () {\n");
-            } else {
-                if(!label.equalsIgnoreCase(previousLabel)) {
-                    appendToScript("\n}\nnode () { \n");
-                }
-            }
-        }
-        previousLabel = label;
+        Element assignedNode = TagIndex.getFirstElement(doc, "assignedNode");
+        label = assignedNode == null ? null : assignedNode.getTextContent();
+    }
+
+    /**
+     * General method to add a stage to the statements of the job.
+     * @param stage Name of stage to create.
+     * @param statement Statement to add under stage.
+     */
+    public void appendStage(String stage, Statement statement) {
+        body.add(Block.stage(stage).add(statement));
     }
 
     /**
      * General method to append script block with a stage wrap.
      * @param stage Name of stage to create.
      * @param block Script block to add under stage.
+     * @deprecated Use {@link #appendStage(String, Statement)}.
      */
+    @Deprecated
     public void appendToScript(String stage, String block) {
-        script.append("\n\tstage ('" + stage + "') {\n \t " + block + " \n\t}");
+        appendStage(stage, Step.code(block.trim()));
     }
 
     /**
-     * General method to append script block to main script.
-     * @param block Script block to add to main script.
+     * General method to append script block to the statements of the job.
+     * @param block Script block to add.
+     * @deprecated Add statements to {@link #body} instead.
      */
-    public void appendToScript(String block) {
-        script.append(block);
+    @Deprecated
+    public void appendToScript(CharSequence block) {
+        String code = block.toString().trim();
+        if (!code.isEmpty()) {
+            body.add(Step.code(code));
+        }
+    }
+
+    /**
+     * @return Syntax the pipeline is rendered in, declarative if requested and scripted otherwise.
+     */
+    private ScriptRenderer.Syntax getSyntax() {
+        return Boolean.TRUE.equals(requestParams.get("declarative")) ? ScriptRenderer.Syntax.DECLARATIVE : ScriptRenderer.Syntax.SCRIPTED;
     }
 
     /**
      * Add Groovy Script to XML strucuture.
-     * If commit to SCM is selected, script is written to Jenkinsfile and committed to SCM.
+     * An inline script is only rendered once the XML is read, see {@link #getStream()}.
+     * If commit to SCM is selected, the SCM flow definition is written and the Jenkinsfile is committed by
+     * {@link #commitJenkinsfile()}, unless the conversion is a preview.
      * @param commitJenkinsfile Boolean to decide if script is to be kept inline or committed as Jenkinsfile to SCM.
      * @param commitMessage Commit message if Jenkinsfile is to be committed to SCM.
      */
     private void appendScriptToXML(boolean commitJenkinsfile, String commitMessage) {
         if(commitJenkinsfile) {
-            new SCMUtil().pushJenkinsfile(script.toString(), scmURL, scmBranch, scmCredentialsId, commitMessage, scmType);
-            flowDefinition.appendChild(writeCPSFlow());
+            FreeStyleProject initialProject = (FreeStyleProject) requestParams.get("initialProject");
+            Object batch = requestParams.get("jenkinsfileBatch");
+            String scriptPath = SCMUtil.JENKINSFILE;
+            if (batch instanceof JenkinsfileBatch) {
+                scriptPath = ((JenkinsfileBatch) batch).getPath(initialProject.getFullName());
+            }
+            if (isPreview()) {
+                logger.info("Jenkinsfile " + scriptPath + " is not pushed for preview");
+            } else {
+                jenkinsfile = scriptPath;
+                this.commitMessage = commitMessage;
+            }
+            flowDefinition.appendChild(writeCPSFlow(scriptPath));
         } else {
             Element definition = dest.createElement("definition");
             definition.setAttribute("class", "org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition");
-            Element scriptDefinition = dest.createElement("script");
-            scriptDefinition.setTextContent(script.toString());
-            definition.appendChild(scriptDefinition);
+            inlineScript = dest.createElement("script");
+            definition.appendChild(inlineScript);
             flowDefinition.appendChild(definition);
         }
     }
 
+    /**
+     * Commits the script as Jenkinsfile to SCM in the background if commit to SCM was selected.
+     * If the conversion is part of a {@link JenkinsfileBatch}, the Jenkinsfile is added to the batch at the path
+     * of the initial job and committed with the other Jenkinsfiles of the batch.
+     * Must be called only once the new job has been created from {@link #getStream()}, so that no Jenkinsfile
+     * is committed for a job that could not be created.
+     *
+     * @return Future that completes when the Jenkinsfile is pushed, or exceptionally if the push failed;
+     *         null if there is no Jenkinsfile to commit.
+     */
+    public CompletableFuture<Void> commitJenkinsfile() {
+        if (jenkinsfile == null) {
+            return null;
+        }
+        FreeStyleProject initialProject = (FreeStyleProject) requestParams.get("initialProject");
+        Object batch = requestParams.get("jenkinsfileBatch");
+        CompletableFuture<Void> push;
+        if (batch instanceof JenkinsfileBatch) {
+            push = ((JenkinsfileBatch) batch).add(initialProject, scmType, scmURL, scmBranch, scmCredentialsId, jenkinsfile, getScript());
+        } else {
+            push = new SCMUtil(initialProject).pushJenkinsfile(getScript(), scmURL, scmBranch, scmCredentialsId, commitMessage, scmType);
+        }
+        jenkinsfile = null;
+        return push;
+    }
+
+    /**
+     * @return True if the conversion is a preview, which must not change anything outside of this Transformer.
+     */
+    private boolean isPreview() {
+        return Boolean.TRUE.equals(requestParams.get("preview"));
+    }
+
+    /**
+     * Returns the script of the whole conversion once it has been performed.
+     * The script is rendered into {@link #script} the first time and kept, since the XML of the new job and the
+     * Jenkinsfile both need it as a String.
+     *
+     * @return Groovy script of the pipeline.
+     */
+    public String getScript() {
+        if (content == null) {
+            new ScriptRenderer(script).render(pipeline, getSyntax());
+            content = script.toString();
+        }
+        return content;
+    }
+
+    /**
+     * Writes the script of the whole conversion once it has been performed straight to a sink, e.g. an HTTP response,
+     * without holding it in memory unless it has already been rendered as a String.
+     *
+     * @param sink Sink the script is written to.
+     *
+     * @throws IOException If the script could not be written to the sink.
+     */
+    public void writeScript(Appendable sink) throws IOException {
+        if (content != null) {
+            sink.append(content);
+        } else {
+            try {
+                new ScriptRenderer(new ScriptEmitter(sink)).render(pipeline, getSyntax());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
     /**
      * Gets Element object from Node based on tag name.
      * @param node Node object from which element is to be extracted.
@@ -281,25 +572,17 @@ public class Transformer {
      * @return Element derived from node by given tag name.
      */
     public Element getElementByTag(Node node, String tag) {
-        return (Element) ((Element) node).getElementsByTagName(tag).item(0);
+        return TagIndex.getFirstElement(node, tag);
     }
 
     /**
      * Write complete transformed configuration to input stream object.
+     * The configuration is serialized while the stream is read, so it is not buffered in memory as a whole.
      */
-    private void writeConfiguration() {
-        try {
-            javax.xml.transform.Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            transformer.transform(new DOMSource(dest), new StreamResult(outputStream));
-            is = new ByteArrayInputStream(outputStream.toByteArray());
-            logger.info("Transformation for job " + currentJobName + " completed successfully");
-        } catch (Exception e) {
-            logger.severe("Exception occurred: " + e.getMessage());
-        }
+    protected void writeConfiguration() {
+        Object prettyPrint = requestParams.get("prettyPrint");
+        is = new DomInputStream(dest, prettyPrint instanceof Boolean ? (Boolean) prettyPrint : PRETTY_PRINT);
+        logger.info("Transformation for job " + currentJobName + " completed successfully");
     }
 
     /**
@@ -337,15 +620,15 @@ public class Transformer {
     /**
      * Write CPS Flow XML structure for SCM type defined.
      *
+     * @param scriptPath Path of the Jenkinsfile in SCM.
+     *
      * @return Element object definition with XML
      */
-    private Element writeCPSFlow() {
+    private Element writeCPSFlow(String scriptPath) {
         try {
-            Class pluginClass = Plugins.getPluginClass(scmType);
-            if(pluginClass != null) {
-                Constructor<Plugins> pluginConstructor = pluginClass.getConstructor();
-                Plugins plugin = pluginConstructor.newInstance();
-                return plugin.writeCPSFlow(dest, scmURL, scmBranch, scmCredentialsId);
+            Plugins plugin = PluginRegistry.create(scmType);
+            if(plugin != null) {
+                return plugin.writeCPSFlow(dest, scmURL, scmBranch, scmCredentialsId, scriptPath);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -353,6 +636,20 @@ public class Transformer {
         return null;
     }
 
+    /**
+     * Lazily created pool for parallel transformation of downstream jobs.
+     */
+    private static class PoolHolder {
+        private static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISM);
+    }
+
+    /**
+     * Holds the fragment cache, which is created on first use once Jenkins is running.
+     */
+    private static class CacheHolder {
+        private static final FragmentCache CACHE = FragmentCache.getDefault();
+    }
+
     public void setOnlyBuildTrigger(boolean value) {
         onlyBuildTrigger = value;
     }
@@ -18,18 +18,29 @@
 package com.infostretch.labs.utils;
 
 import com.cloudbees.hudson.plugins.folder.Folder;
+import com.infostretch.labs.transformers.JobGraph;
 import com.infostretch.labs.transformers.Transformer;
+import hudson.model.AutoCompletionCandidates;
 import hudson.model.FreeStyleProject;
 import hudson.model.Item;
+import hudson.model.ItemGroup;
 import hudson.model.TopLevelItem;
 import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.IOUtils;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
 
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * ActionUtil is the class that provides the common logic for actions to handle the validation and conversion.
@@ -38,8 +49,26 @@ import java.util.Map;
  */
 
 public class ActionUtil {
+    private static final Logger logger = Logger.getLogger(ActionUtil.class.getName());
+
+    /**
+     * Number of jobs returned by search when no limit is requested, and by auto completion.
+     */
+    public static final int PAGE_SIZE = 20;
+
+    /**
+     * Upper bound for the limit a search request may ask for.
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * Request parameters that override the defaults of the Transformer, which are set by system properties,
+     * for a single conversion.
+     */
+    static final List<String> OPTIONS = Collections.unmodifiableList(Arrays.asList("parallel", "prettyPrint", "cache"));
 
     private FreeStyleProject job;
+    private CompletableFuture<Void> push;
 
     /**
      * Constructor to initialise FreeStyleProject.
@@ -50,6 +79,38 @@ public class ActionUtil {
         this.job = job;
     }
 
+    /**
+     * @return Future of the Jenkinsfile push of the last conversion, which completes exceptionally if the push failed;
+     *         null if no Jenkinsfile was committed.
+     */
+    public CompletableFuture<Void> getPush() {
+        return push;
+    }
+
+    /**
+     * Reads the options of a conversion from the form: "downStream", "commitJenkinsfile" (from "commitJFile"),
+     * "commitMessage" and "declarative", and the {@link #OPTIONS} of the Transformer that are given in the request.
+     * "on" and "true" enable an option of the Transformer, other values disable it.
+     *
+     * @param request StaplerRequest object from the form.
+     *
+     * @return Options by name; options of the Transformer only for the parameters that are present.
+     */
+    public static Map<String, Object> getOptions(StaplerRequest request) {
+        Map<String, Object> options = new HashMap<>();
+        options.put("downStream", isChecked(request, "downStream"));
+        options.put("commitJenkinsfile", isChecked(request, "commitJFile"));
+        options.put("commitMessage", getCommitMessage(request));
+        options.put("declarative", isChecked(request, "declarative"));
+        for (String option : OPTIONS) {
+            String value = request.getParameter(option);
+            if (value != null) {
+                options.put(option, value.equalsIgnoreCase("on") || Boolean.parseBoolean(value));
+            }
+        }
+        return options;
+    }
+
     /**
      * Validates if desired new name of converted job does not exist at current level.
      *
@@ -80,6 +141,7 @@ public class ActionUtil {
 
     /**
      * Calls Transformer class with request parameters and creates new pipeline job from XML.
+     * The outcome of the Jenkinsfile push, which finishes after the redirect, is logged.
      *
      * @param request StaplerRequest object from the form.
      * @param response StaplerResponse object that re-directs to newly created job.
@@ -90,39 +152,17 @@ public class ActionUtil {
     public void doConvert(final StaplerRequest request, final StaplerResponse response) throws ServletException,
             IOException {
         try {
-            String newName = request.getParameter("newName");
-            boolean convertDownStream = false;
-            boolean commitJenkinsfile = false;
-            String commitMessage = request.getParameter("commitMessage");
-            if (request.getParameter("downStream") != null && request.getParameter("downStream").equalsIgnoreCase("on")) {
-                convertDownStream = true;
-            }
-            if (request.getParameter("commitJFile") != null && request.getParameter("commitJFile").equalsIgnoreCase("on")) {
-                commitJenkinsfile = true;
+            TopLevelItem newJob = convert(request.getParameter("newName"), getOptions(request));
+            if (push != null) {
+                String name = newJob.getFullName();
+                push.whenComplete((result, e) -> {
+                    if (e == null) {
+                        logger.info("Jenkinsfile of " + name + " pushed");
+                    } else {
+                        logger.warning("Jenkinsfile of " + name + " could not be pushed: " + e.getMessage());
+                    }
+                });
             }
-            if(commitJenkinsfile && commitMessage.isEmpty()) {
-                commitMessage = "";
-            }
-
-            Map<String, Object> params = new HashMap();
-            params.put("initialProject", job);
-            params.put("downStream", convertDownStream);
-            params.put("commitJenkinsfile", commitJenkinsfile);
-            params.put("commitMessage", commitMessage);
-
-            TopLevelItem newJob;
-            newName = defineName(newName, job.getName());
-            if (job.getParent().getClass().equals(Folder.class)) {
-                Folder folder = (Folder) job.getParent();
-                Transformer transformer = new Transformer(params);
-                transformer.performFreeStyleTransformation();
-                newJob = folder.createProjectFromXML(newName, transformer.getStream());
-            } else {
-                Transformer transformer = new Transformer(params);
-                transformer.performFreeStyleTransformation();
-                newJob = Jenkins.getInstance().createProjectFromXML(newName, transformer.getStream());
-            }
-            Jenkins.getInstance().reload();
             response.sendRedirect2(newJob.getAbsoluteUrl());
         }
         catch (Exception e) {
@@ -130,6 +170,263 @@ public class ActionUtil {
         }
     }
 
+    /**
+     * Runs the Transformer on the job and creates new pipeline job from XML next to it.
+     * Used by the convert form as well as by bulk conversions running on the {@link ConversionQueue}.
+     * Creating the job from XML registers it with its parent, so no other item needs to be reloaded.
+     * The Jenkinsfile is only committed, or added to the batch, once the new job has been created.
+     * The future of its push is kept, see {@link #getPush()}.
+     *
+     * @param newName Desired new name of the pipeline job to be created (optional).
+     * @param options Options of the conversion by name, as returned by {@link #getOptions}: "downStream",
+     *                "commitJenkinsfile", "commitMessage", "declarative", the {@link #OPTIONS} of the Transformer and
+     *                "jenkinsfileBatch", a {@link JenkinsfileBatch} to which the Jenkinsfile is added instead of
+     *                being pushed right away. Options that are not given are off.
+     *
+     * @return The newly created pipeline job.
+     *
+     * @throws IOException If the new job could not be created.
+     */
+    public TopLevelItem convert(String newName, Map<String, Object> options) throws IOException {
+        TopLevelItem newJob;
+        push = null;
+        newName = defineName(newName, job.getName());
+        Transformer transformer = new Transformer(getParams(options));
+        transformer.performFreeStyleTransformation();
+        if (job.getParent().getClass().equals(Folder.class)) {
+            Folder folder = (Folder) job.getParent();
+            newJob = folder.createProjectFromXML(newName, transformer.getStream());
+        } else {
+            newJob = Jenkins.getInstance().createProjectFromXML(newName, transformer.getStream());
+        }
+        push = transformer.commitJenkinsfile();
+        return newJob;
+    }
+
+    /**
+     * Handles preview request. The Transformer is run in memory and the script is rendered straight to the response
+     * as plain text, or the XML of the pipeline job is streamed if the "format" parameter is "xml".
+     * No job is created and no Jenkinsfile is committed. {@link Item#EXTENDED_READ} is required on every job
+     * that is previewed, including the downstream jobs.
+     *
+     * @param request StaplerRequest object with the same parameters as the convert form and an optional "format".
+     * @param response StaplerResponse object to which the script or XML is written.
+     *
+     * @throws IOException If an input or output exception occurred.
+     */
+    public void doPreview(final StaplerRequest request, final StaplerResponse response) throws IOException {
+        Map<String, Object> options = getOptions(request);
+        for (FreeStyleProject previewed : new JobGraph(job, (boolean) options.get("downStream")).getJobs()) {
+            previewed.checkPermission(Item.EXTENDED_READ);
+        }
+        Transformer transformer = preview(options);
+        if ("xml".equalsIgnoreCase(request.getParameter("format"))) {
+            response.setContentType("application/xml;charset=UTF-8");
+            try (InputStream xml = transformer.getStream()) {
+                IOUtils.copy(xml, response.getOutputStream());
+            }
+        } else {
+            response.setContentType("text/plain;charset=UTF-8");
+            transformer.writeScript(response.getWriter());
+        }
+    }
+
+    /**
+     * Runs the Transformer on the job without creating a job or committing to SCM.
+     * If "commitJenkinsfile" is set, the XML refers to a Jenkinsfile in SCM instead of holding the script.
+     *
+     * @param options Options of the conversion by name, as for {@link #convert(String, Map)}.
+     *
+     * @return Transformer that holds the script and the XML of the pipeline job.
+     */
+    public Transformer preview(Map<String, Object> options) {
+        Map<String, Object> params = getParams(options);
+        params.put("preview", true);
+        Transformer transformer = new Transformer(params);
+        transformer.performFreeStyleTransformation();
+        return transformer;
+    }
+
+    private Map<String, Object> getParams(Map<String, Object> options) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("downStream", false);
+        params.put("commitJenkinsfile", false);
+        params.put("declarative", false);
+        if (options != null) {
+            params.putAll(options);
+        }
+        if (params.get("commitMessage") == null) {
+            params.put("commitMessage", "");
+        }
+        params.put("initialProject", job);
+        return params;
+    }
+
+    /**
+     * Handles bulk conversion request. FreeStyle jobs under the parent are picked either by full name or by pattern
+     * and queued for conversion; the response holds the batch id to poll for progress.
+     *
+     * @param request StaplerRequest object with "jobs" (comma or new line separated full names) and/or "pattern" parameters.
+     *                If "batchCommits" is checked, Jenkinsfiles are committed once per repository at "jenkinsfilePath";
+     *                the request is rejected if that path is not valid for any of the picked jobs.
+     * @param response StaplerResponse object to which the batch details are written as JSON.
+     * @param parent Item group under which FreeStyle jobs may be picked for conversion.
+     *
+     * @throws IOException If an input or output exception occurred.
+     */
+    public static void doBulkConvert(final StaplerRequest request, final StaplerResponse response,
+                                     ItemGroup<? extends Item> parent) throws IOException {
+        Pattern pattern = null;
+        String regex = request.getParameter("pattern");
+        if (regex != null && !regex.trim().isEmpty()) {
+            try {
+                pattern = Pattern.compile(regex.trim());
+            } catch (PatternSyntaxException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid pattern: " + e.getDescription());
+                return;
+            }
+        }
+        Set<String> names = new HashSet<>();
+        String jobs = request.getParameter("jobs");
+        if (jobs != null) {
+            for (String name : jobs.split("[,\\n]")) {
+                if (!name.trim().isEmpty()) {
+                    names.add(name.trim());
+                }
+            }
+        }
+        if (pattern == null && names.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Either 'jobs' or 'pattern' is required");
+            return;
+        }
+        final Pattern fullNamePattern = pattern;
+        List<FreeStyleProject> selected = new ItemIterator<>(parent, FreeStyleProject.class)
+                .filter(project -> names.contains(project.getFullName())
+                        || (fullNamePattern != null && fullNamePattern.matcher(project.getFullName()).matches()))
+                .toList();
+        JenkinsfileBatch jenkinsfiles = null;
+        if (isChecked(request, "commitJFile") && isChecked(request, "batchCommits")) {
+            jenkinsfiles = new JenkinsfileBatch(request.getParameter("jenkinsfilePath"), getCommitMessage(request));
+            for (FreeStyleProject project : selected) {
+                String path = jenkinsfiles.getPath(project.getFullName());
+                if (!JenkinsfileBatch.isValidPath(path)) {
+                    response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid Jenkinsfile path '" + path + "' of "
+                            + project.getFullName() + ": empty, '.', '..' and '.git' segments are not allowed");
+                    return;
+                }
+            }
+        }
+        Map<String, Object> options = getOptions(request);
+        options.put("jenkinsfileBatch", jenkinsfiles);
+        ConversionBatch batch = ConversionQueue.submit(selected, options);
+        writeJSON(response, batch.toJSON());
+    }
+
+    /**
+     * Writes progress and per job results of a bulk conversion batch.
+     *
+     * @param id Batch id returned by bulk conversion request.
+     * @param response StaplerResponse object to which the batch status is written as JSON.
+     *
+     * @throws IOException If an input or output exception occurred.
+     */
+    public static void doBatchStatus(String id, final StaplerResponse response) throws IOException {
+        ConversionBatch batch = ConversionQueue.getBatch(id);
+        if (batch == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "No such batch: " + id);
+            return;
+        }
+        writeJSON(response, batch.toJSON());
+    }
+
+    /**
+     * Handles job search request. Items are walked depth-first from the parent and the walk stops as soon as
+     * the requested page is filled, so the cost depends on the page and not on the number of items.
+     *
+     * @param parent Item group under which FreeStyle jobs are searched.
+     * @param request StaplerRequest object with optional "q" (part of full name), "start" and "limit" parameters.
+     * @param response StaplerResponse object to which the page of jobs is written as JSON.
+     *
+     * @throws IOException If an input or output exception occurred.
+     */
+    public static void doSearchJobs(ItemGroup<? extends Item> parent, final StaplerRequest request,
+                                    final StaplerResponse response) throws IOException {
+        int start = Math.max(0, getInt(request, "start", 0));
+        int limit = Math.min(MAX_PAGE_SIZE, Math.max(1, getInt(request, "limit", PAGE_SIZE)));
+        List<FreeStyleProject> found = searchFreeStyleJobs(parent, request.getParameter("q"), start, limit + 1);
+        JSONArray jobs = new JSONArray();
+        for (FreeStyleProject project : found.subList(0, Math.min(limit, found.size()))) {
+            JSONObject json = new JSONObject();
+            json.put("name", project.getFullName());
+            json.put("displayName", project.getFullDisplayName());
+            jobs.add(json);
+        }
+        JSONObject page = new JSONObject();
+        page.put("start", start);
+        page.put("jobs", jobs);
+        page.put("hasMore", found.size() > limit);
+        writeJSON(response, page);
+    }
+
+    /**
+     * Auto completes full names of FreeStyle jobs with the first page of search results.
+     *
+     * @param parent Item group under which FreeStyle jobs are searched.
+     * @param value Text typed so far.
+     *
+     * @return Full names of matching FreeStyle jobs.
+     */
+    public static AutoCompletionCandidates autoCompleteJobs(ItemGroup<? extends Item> parent, String value) {
+        AutoCompletionCandidates candidates = new AutoCompletionCandidates();
+        for (FreeStyleProject project : searchFreeStyleJobs(parent, value, 0, PAGE_SIZE)) {
+            candidates.add(project.getFullName());
+        }
+        return candidates;
+    }
+
+    /**
+     * Finds a page of FreeStyle jobs under the parent whose full name contains the query, ignoring case.
+     * Item groups are walked lazily with {@link ItemIterator} and the walk stops once the page is filled.
+     *
+     * @param parent Item group under which FreeStyle jobs are searched.
+     * @param query Part of the full name to look for; null or empty matches every job.
+     * @param start Number of matching jobs to skip.
+     * @param limit Maximum number of jobs to return.
+     *
+     * @return Matching FreeStyle jobs in the order they were walked.
+     */
+    public static List<FreeStyleProject> searchFreeStyleJobs(ItemGroup<? extends Item> parent, String query,
+                                                             int start, int limit) {
+        String text = query == null ? "" : query.trim().toLowerCase(Locale.ENGLISH);
+        return new ItemIterator<>(parent, FreeStyleProject.class)
+                .filter(project -> project.getFullName().toLowerCase(Locale.ENGLISH).contains(text))
+                .skip(start)
+                .limit(limit)
+                .toList();
+    }
+
+    private static int getInt(StaplerRequest request, String parameter, int defaultValue) {
+        try {
+            return Integer.parseInt(request.getParameter(parameter));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static void writeJSON(StaplerResponse response, JSONObject json) throws IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().print(json.toString());
+    }
+
+    private static boolean isChecked(StaplerRequest request, String parameter) {
+        return request.getParameter(parameter) != null && request.getParameter(parameter).equalsIgnoreCase("on");
+    }
+
+    private static String getCommitMessage(StaplerRequest request) {
+        String commitMessage = request.getParameter("commitMessage");
+        return commitMessage == null ? "" : commitMessage;
+    }
+
     /**
      * Creates new name of pipeline job if none is specified.
      *
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.utils;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.TopLevelItem;
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.acegisecurity.Authentication;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * ConversionBatch holds the progress and per job results of a bulk conversion submitted to {@link ConversionQueue}.
+ *
+ * @author Mohit Dharamshi
+ */
+
+public class ConversionBatch {
+    private static final Logger logger = Logger.getLogger(ConversionBatch.class.getName());
+
+    /**
+     * Lifecycle of a single job conversion within a batch.
+     */
+    public enum Status {
+        QUEUED, RUNNING, CONVERTED, FAILED
+    }
+
+    /**
+     * Outcome of the Jenkinsfile push of a converted job, which finishes after the job is converted.
+     */
+    public enum PushStatus {
+        PENDING, PUSHED, FAILED
+    }
+
+    private final String id;
+    private final JenkinsfileBatch jenkinsfiles;
+    private final Map<String, Object> options;
+    private final Authentication authentication;
+    private final List<JobResult> results;
+    private final AtomicInteger converted = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger pushes = new AtomicInteger();
+    private final AtomicInteger pushed = new AtomicInteger();
+    private final AtomicInteger pushFailed = new AtomicInteger();
+
+    ConversionBatch(String id, List<FreeStyleProject> jobs, Map<String, Object> options, Authentication authentication) {
+        this.id = id;
+        this.options = options == null ? Collections.<String, Object>emptyMap() : new HashMap<>(options);
+        Object batch = this.options.get("jenkinsfileBatch");
+        this.jenkinsfiles = batch instanceof JenkinsfileBatch ? (JenkinsfileBatch) batch : null;
+        this.authentication = authentication;
+        List<JobResult> list = new ArrayList<>();
+        for (FreeStyleProject job : jobs) {
+            list.add(new JobResult(job.getFullName()));
+        }
+        this.results = Collections.unmodifiableList(list);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<JobResult> getResults() {
+        return results;
+    }
+
+    /**
+     * @return Number of jobs that are converted or failed.
+     */
+    public int getCompleted() {
+        return converted.get() + failed.get();
+    }
+
+    public boolean isDone() {
+        return getCompleted() == results.size();
+    }
+
+    /**
+     * Progress and per job results of this batch in JSON form.
+     *
+     * @return JSONObject with batch id, counters, results of every job including the outcome of its Jenkinsfile push,
+     *         and counters of batched Jenkinsfile pushes.
+     */
+    public JSONObject toJSON() {
+        JSONArray jobs = new JSONArray();
+        for (JobResult result : results) {
+            JSONObject job = new JSONObject();
+            job.put("job", result.getJobName());
+            job.put("status", result.getStatus().toString());
+            if (result.getNewJobName() != null) {
+                job.put("newJob", result.getNewJobName());
+                job.put("url", result.getNewJobUrl());
+            }
+            if (result.getMessage() != null) {
+                job.put("message", result.getMessage());
+            }
+            if (result.getPushStatus() != null) {
+                job.put("push", result.getPushStatus().toString());
+                if (result.getPushMessage() != null) {
+                    job.put("pushMessage", result.getPushMessage());
+                }
+            }
+            jobs.add(job);
+        }
+        JSONObject json = new JSONObject();
+        json.put("id", id);
+        json.put("total", results.size());
+        json.put("completed", getCompleted());
+        json.put("converted", converted.get());
+        json.put("failed", failed.get());
+        json.put("done", isDone());
+        json.put("jobs", jobs);
+        if (jenkinsfiles != null) {
+            JSONObject commits = new JSONObject();
+            commits.put("total", pushes.get());
+            commits.put("pushed", pushed.get());
+            commits.put("failed", pushFailed.get());
+            json.put("pushes", commits);
+        }
+        return json;
+    }
+
+    /**
+     * Conversion of a single job within the batch.
+     */
+    public class JobResult {
+        private final String jobName;
+        private volatile Status status = Status.QUEUED;
+        private volatile String newJobName;
+        private volatile String newJobUrl;
+        private volatile String message;
+        private volatile PushStatus pushStatus;
+        private volatile String pushMessage;
+
+        JobResult(String jobName) {
+            this.jobName = jobName;
+        }
+
+        public String getJobName() {
+            return jobName;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getNewJobName() {
+            return newJobName;
+        }
+
+        public String getNewJobUrl() {
+            return newJobUrl;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return Outcome of the Jenkinsfile push, or null if no Jenkinsfile is committed for this job.
+         */
+        public PushStatus getPushStatus() {
+            return pushStatus;
+        }
+
+        public String getPushMessage() {
+            return pushMessage;
+        }
+
+        /**
+         * Converts the job impersonating the user who submitted the batch.
+         * The job is looked up again by name since it may have been renamed or deleted while queued.
+         * The conversion that completes the batch pushes the Jenkinsfiles collected by the batch, if any.
+         * The job is converted once its new job is created; the outcome of its push is reported separately.
+         */
+        void run() {
+            status = Status.RUNNING;
+            SecurityContext previous = ACL.impersonate(authentication);
+            try {
+                FreeStyleProject job = Jenkins.getInstance().getItemByFullName(jobName, FreeStyleProject.class);
+                if (job == null) {
+                    fail("Job no longer exists");
+                } else if (!ActionUtil.validateForm("", jobName)) {
+                    fail("A job already exists with the name '" + ActionUtil.defineName("", job.getName()) + "'");
+                } else {
+                    ActionUtil util = new ActionUtil(job);
+                    TopLevelItem newJob = util.convert("", options);
+                    newJobName = newJob.getFullName();
+                    newJobUrl = newJob.getUrl();
+                    track(util.getPush());
+                    status = Status.CONVERTED;
+                    converted.incrementAndGet();
+                }
+            } catch (Exception e) {
+                logger.severe("Exception occurred converting " + jobName + " in batch " + id + ": " + e.getMessage());
+                fail(e.toString());
+            } finally {
+                SecurityContextHolder.setContext(previous);
+            }
+            if (jenkinsfiles != null && isDone()) {
+                for (CompletableFuture<Void> push : jenkinsfiles.flush()) {
+                    pushes.incrementAndGet();
+                    push.whenComplete((result, e) -> (e == null ? pushed : pushFailed).incrementAndGet());
+                }
+            }
+        }
+
+        private void track(CompletableFuture<Void> push) {
+            if (push == null) {
+                return;
+            }
+            pushStatus = PushStatus.PENDING;
+            push.whenComplete((result, e) -> {
+                if (e == null) {
+                    pushStatus = PushStatus.PUSHED;
+                } else {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    logger.warning("Jenkinsfile of " + jobName + " in batch " + id + " could not be pushed: " + cause);
+                    pushMessage = cause.toString();
+                    pushStatus = PushStatus.FAILED;
+                }
+            });
+        }
+
+        private void fail(String reason) {
+            message = reason;
+            status = Status.FAILED;
+            failed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.utils;
+
+import hudson.model.FreeStyleProject;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import org.acegisecurity.Authentication;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * ConversionQueue runs bulk conversions in the background on a bounded pool of worker threads.
+ * Each submission is tracked as a {@link ConversionBatch} that can be polled for progress by its id.
+ *
+ * The number of workers can be tuned with the system property
+ * <code>com.infostretch.labs.utils.ConversionQueue.threads</code> (default 2).
+ *
+ * @author Mohit Dharamshi
+ */
+
+public final class ConversionQueue {
+
+    private static final int THREADS = Math.max(1, Integer.getInteger(ConversionQueue.class.getName() + ".threads", 2));
+
+    /**
+     * Number of batches kept for status queries; older batches are forgotten once this is exceeded.
+     */
+    private static final int MAX_BATCHES = 20;
+
+    private static final ThreadPoolExecutor executor = createExecutor();
+
+    private static final Map<String, ConversionBatch> batches = Collections.synchronizedMap(
+            new LinkedHashMap<String, ConversionBatch>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ConversionBatch> eldest) {
+                    return size() > MAX_BATCHES;
+                }
+            });
+
+    private ConversionQueue() {
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "ConvertToPipeline.ConversionQueue"));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Queues conversion of given jobs and returns immediately.
+     * Conversions run with the authentication of the calling user.
+     *
+     * @param jobs FreeStyle jobs to convert.
+     * @param options Options of every conversion by name, as for {@link ActionUtil#convert(String, Map)};
+     *                a "jenkinsfileBatch" collects the Jenkinsfiles and pushes them once all jobs are converted.
+     *
+     * @return Batch that tracks the queued conversions.
+     */
+    public static ConversionBatch submit(List<FreeStyleProject> jobs, Map<String, Object> options) {
+        Authentication authentication = Jenkins.getAuthentication();
+        ConversionBatch batch = new ConversionBatch(UUID.randomUUID().toString(), jobs, options, authentication);
+        batches.put(batch.getId(), batch);
+        for (final ConversionBatch.JobResult result : batch.getResults()) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    result.run();
+                }
+            });
+        }
+        return batch;
+    }
+
+    /**
+     * Returns the batch with given id.
+     *
+     * @param id Batch id returned on submission.
+     *
+     * @return Matching batch or null if it is unknown or no longer kept.
+     */
+    public static ConversionBatch getBatch(String id) {
+        return id == null ? null : batches.get(id);
+    }
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+package com.infostretch.labs.utils;
+
+import com.cloudbees.plugins.credentials.CredentialsMatchers;
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CredentialsCache resolves the credentials used to push Jenkinsfiles in the item group of the converted job,
+ * so that credentials of the job's folders are found, and keeps them for a short time by id.
+ * The cache is cleared whenever a credentials store is saved, i.e. global credentials or the configuration
+ * of a folder, which holds the folder's credentials.
+ *
+ * Entries expire after the number of milliseconds given by the system property
+ * <code>com.infostretch.labs.utils.CredentialsCache.ttl</code> (default 5 minutes).
+ *
+ * @author Mohit Dharamshi
+ */
+public final class CredentialsCache {
+
+    private static final long TTL = Long.getLong(CredentialsCache.class.getName() + ".ttl", TimeUnit.MINUTES.toMillis(5));
+
+    private static final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private CredentialsCache() {
+    }
+
+    /**
+     * Gets username and password credentials by id as seen by an item.
+     *
+     * @param context Item whose item group, its parents and Jenkins are searched for credentials; null searches Jenkins only.
+     * @param credentialsId Credentials ID of repo.
+     * @param url URL of repo, which restricts the credentials to the domains that match it.
+     *
+     * @return Matching credentials or null if there are none.
+     */
+    public static StandardUsernamePasswordCredentials get(Item context, String credentialsId, String url) {
+        if (credentialsId == null || credentialsId.isEmpty()) {
+            return null;
+        }
+        ItemGroup<?> group = context == null ? Jenkins.getInstance() : context.getParent();
+        Key key = new Key(group, credentialsId, url);
+        Entry entry = entries.get(key);
+        if (entry != null && System.currentTimeMillis() - entry.created < TTL) {
+            return entry.credentials;
+        }
+        StandardUsernamePasswordCredentials credentials = CredentialsMatchers.firstOrNull(
+                CredentialsProvider.lookupCredentials(StandardUsernamePasswordCredentials.class, group, ACL.SYSTEM,
+                        URIRequirementBuilder.fromUri(url).build()),
+                CredentialsMatchers.withId(credentialsId));
+        if (credentials == null) {
+            entries.remove(key);
+        } else {
+            entries.put(key, new Entry(credentials));
+        }
+        return credentials;
+    }
+
+    /**
+     * Forgets all cached credentials.
+     */
+    public static void invalidate() {
+        entries.clear();
+    }
+
+    /**
+     * Clears the cache when global credentials or the configuration of an item group, such as a folder, is saved.
+     */
+    @Extension
+    public static class Invalidator extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof SystemCredentialsProvider || o instanceof ItemGroup) {
+                invalidate();
+            }
+        }
+    }
+
+    /**
+     * Credentials are looked up in the item group of an item, so items with the same parent share entries.
+     */
+    private static final class Key {
+        final ItemGroup<?> context;
+        final String credentialsId;
+        final String url;
+
+        Key(ItemGroup<?> context, String credentialsId, String url) {
+            this.context = context;
+            this.credentialsId = credentialsId;
+            this.url = url;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return context == other.context && credentialsId.equals(other.credentialsId) && Objects.equals(url, other.url);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(context), credentialsId, url);
+        }
+    }
+
+    private static final class Entry {
+        final StandardUsernamePasswordCredentials credentials;
+        final long created = System.currentTimeMillis();
+
+        Entry(StandardUsernamePasswordCredentials credentials) {
+            this.credentials = credentials;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.utils;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.CharConversionException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * DomInputStream serializes a DOM node as UTF-8 XML while the stream is read, so that the XML of a new job is
+ * never held in memory as a whole next to its document. The JDK serializer writes into a pipe on a background
+ * thread, which starts on the first read and blocks whenever the pipe is full.
+ * The XML declaration is written for documents; if indenting, elements are indented by 2 spaces.
+ * Reading fails with a {@link CharConversionException} if the node holds characters that XML 1.0 does not allow,
+ * e.g. control characters or unpaired surrogates, instead of writing XML that Jenkins cannot load.
+ * The stream must be read to the end or closed, and the document must not be changed while it is read.
+ *
+ * @author Mohit Dharamshi
+ */
+public class DomInputStream extends InputStream {
+
+    private static final int PIPE_SIZE = 8192;
+
+    private static final ExecutorService writers = Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), "ConvertToPipeline.DomInputStream"));
+
+    private final Node node;
+    private final boolean indent;
+    private PipedInputStream pipe;
+    private volatile IOException failure;
+
+    /**
+     * @param node Document or element to serialize.
+     * @param indent True to indent elements.
+     */
+    public DomInputStream(Node node, boolean indent) {
+        this.node = node;
+        this.indent = indent;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return checkEnd(pipe().read());
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return len == 0 ? 0 : checkEnd(pipe().read(b, off, len));
+    }
+
+    @Override
+    public int available() throws IOException {
+        return pipe == null ? 0 : pipe.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (pipe != null) {
+            pipe.close();
+        }
+    }
+
+    /**
+     * @return Pipe that the serializer writes into, which is started the first time.
+     */
+    private synchronized PipedInputStream pipe() throws IOException {
+        if (pipe == null) {
+            pipe = new PipedInputStream(PIPE_SIZE);
+            final PipedOutputStream out = new PipedOutputStream(pipe);
+            writers.execute(() -> write(out));
+        }
+        return pipe;
+    }
+
+    private void write(PipedOutputStream out) {
+        try {
+            checkCharacters(node);
+            XmlUtil.newSerializer(node.getNodeType() != Node.DOCUMENT_NODE, indent)
+                    .transform(new DOMSource(node), new StreamResult(out));
+        } catch (CharConversionException e) {
+            failure = e;
+        } catch (TransformerException | RuntimeException e) {
+            failure = new IOException("Unable to serialize XML: " + e.getMessage(), e);
+        } finally {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // The reader has closed the stream.
+            }
+        }
+    }
+
+    /**
+     * @return The number of bytes read, unless the end of the stream is reached because serializing failed.
+     */
+    private int checkEnd(int read) throws IOException {
+        if (read < 0 && failure != null) {
+            throw failure;
+        }
+        return read;
+    }
+
+    /**
+     * Checks text, attributes, comments and processing instructions of a node and its descendants.
+     */
+    private static void checkCharacters(Node node) throws CharConversionException {
+        if (node.getNodeValue() != null) {
+            checkCharacters(node, node.getNodeValue());
+        }
+        NamedNodeMap attributes = node.getAttributes();
+        if (attributes != null) {
+            for (int i = 0; i < attributes.getLength(); i++) {
+                checkCharacters(attributes.item(i), attributes.item(i).getNodeValue());
+            }
+        }
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            checkCharacters(child);
+        }
+    }
+
+    private static void checkCharacters(Node node, String value) throws CharConversionException {
+        for (int i = 0; i < value.length(); ) {
+            int c = value.codePointAt(i);
+            if (!(c == 0x9 || c == 0xA || c == 0xD || (c >= 0x20 && c <= 0xD7FF) || (c >= 0xE000 && c <= 0xFFFD)
+                    || c >= 0x10000)) {
+                Node owner = node.getNodeType() == Node.ATTRIBUTE_NODE || node.getParentNode() == null ? node : node.getParentNode();
+                throw new CharConversionException(String.format("Character U+%04X in %s is not allowed in XML",
+                        c, owner.getNodeName()));
+            }
+            i += Character.charCount(c);
+        }
+    }
+}
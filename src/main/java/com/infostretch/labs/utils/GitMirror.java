@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+package com.infostretch.labs.utils;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * GitMirror is a bare repository kept on disk for a remote URL, so that pushing a Jenkinsfile only fetches
+ * what changed on the remote branch since the last push instead of cloning the whole repository again.
+ * Commits are written directly to the object database of the mirror, so no working tree is checked out.
+ * There is one mirror per remote URL under the mirrors directory; callers synchronize on the mirror
+ * while they use it.
+ *
+ * @author Mohit Dharamshi
+ */
+public class GitMirror {
+    private static final Logger logger = Logger.getLogger(GitMirror.class.getName());
+
+    private static final Map<File, GitMirror> mirrors = new ConcurrentHashMap<>();
+
+    private final File directory;
+    private final String url;
+
+    private GitMirror(File directory, String url) {
+        this.directory = directory;
+        this.url = url;
+    }
+
+    /**
+     * Gets the mirror of a remote repository.
+     *
+     * @param mirrorsDirectory Directory in which mirrors are kept.
+     * @param url URL of remote repository.
+     *
+     * @return The same GitMirror object for every call with the same directory and URL.
+     */
+    public static GitMirror forUrl(File mirrorsDirectory, String url) {
+        File directory = new File(mirrorsDirectory, hash(url) + ".git").getAbsoluteFile();
+        return mirrors.computeIfAbsent(directory, d -> new GitMirror(d, url));
+    }
+
+    /**
+     * @return Directory of the bare repository.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return URL of remote repository.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Opens the bare repository, creating it with the remote "origin" if it does not exist yet.
+     *
+     * @return Repository of the mirror; to be closed by the caller.
+     *
+     * @throws IOException If the repository cannot be created or opened.
+     */
+    public Repository open() throws IOException {
+        Repository repository = new FileRepositoryBuilder().setGitDir(directory).setBare().build();
+        if (!repository.getObjectDatabase().exists()) {
+            repository.create(true);
+            logger.info("Created mirror of " + url + " in " + directory);
+        }
+        StoredConfig config = repository.getConfig();
+        if (!url.equals(config.getString("remote", "origin", "url"))) {
+            config.setString("remote", "origin", "url", url);
+            config.save();
+        }
+        return repository;
+    }
+
+    /**
+     * Fetches a single branch from the remote into the same branch of the mirror.
+     * Only objects that the mirror does not have yet are transferred.
+     *
+     * @param repository Repository of the mirror, as returned by {@link #open()}.
+     * @param branchName Name of branch without "refs/heads/".
+     * @param credentialsProvider Credentials to use for fetch.
+     *
+     * @return Commit at the tip of the branch.
+     *
+     * @throws GitAPIException If fetch fails.
+     * @throws IOException If the fetched branch cannot be read.
+     */
+    public ObjectId fetch(Repository repository, String branchName, CredentialsProvider credentialsProvider)
+            throws GitAPIException, IOException {
+        String ref = "refs/heads/" + branchName;
+        new Git(repository).fetch()
+                .setRemote("origin")
+                .setCredentialsProvider(credentialsProvider)
+                .setRefSpecs(new RefSpec("+" + ref + ":" + ref))
+                .call();
+        ObjectId tip = repository.resolve(ref);
+        if (tip == null) {
+            throw new IOException("Branch " + branchName + " not found in " + url);
+        }
+        return tip;
+    }
+
+    /**
+     * Commits files on top of the parent directly in the object database of the mirror and moves the branch to
+     * the new commit. Only the trees on the paths of the files are rewritten; nothing is checked out.
+     *
+     * @param repository Repository of the mirror, as returned by {@link #open()}.
+     * @param branchName Name of branch without "refs/heads/".
+     * @param parent Commit on which the files are committed; the branch is expected to point to it.
+     * @param files Content of files by path relative to the root of the repository, e.g. "Jenkinsfile".
+     * @param commitMessage Message of the commit.
+     *
+     * @return The new commit.
+     *
+     * @throws IOException If objects cannot be read or written, or the branch has moved.
+     */
+    public ObjectId commit(Repository repository, String branchName, ObjectId parent, Map<String, String> files,
+                           String commitMessage) throws IOException {
+        ObjectId commitId;
+        try (ObjectInserter inserter = repository.newObjectInserter();
+             RevWalk walk = new RevWalk(repository)) {
+            Map<String, ObjectId> blobs = new TreeMap<>();
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                blobs.put(file.getKey(), inserter.insert(Constants.OBJ_BLOB, file.getValue().getBytes(StandardCharsets.UTF_8)));
+            }
+            RevCommit parentCommit = walk.parseCommit(parent);
+            PersonIdent ident = new PersonIdent(repository);
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(writeTree(walk.getObjectReader(), inserter, parentCommit.getTree(), blobs));
+            commit.setParentId(parentCommit);
+            commit.setAuthor(ident);
+            commit.setCommitter(ident);
+            commit.setMessage(commitMessage);
+            commitId = inserter.insert(commit);
+            inserter.flush();
+        }
+        RefUpdate update = repository.updateRef(Constants.R_HEADS + branchName);
+        update.setNewObjectId(commitId);
+        update.setExpectedOldObjectId(parent);
+        update.setRefLogMessage("commit: " + commitMessage, false);
+        RefUpdate.Result result = update.update();
+        if (result != RefUpdate.Result.FAST_FORWARD && result != RefUpdate.Result.NEW) {
+            throw new IOException("Could not update " + branchName + " in mirror of " + url + ": " + result);
+        }
+        return commitId;
+    }
+
+    /**
+     * Writes a tree that holds the entries of the existing tree with the blobs added or replaced.
+     * Subtrees that hold none of the paths are kept as they are without being read.
+     */
+    private static ObjectId writeTree(ObjectReader reader, ObjectInserter inserter, AnyObjectId tree,
+                                      Map<String, ObjectId> blobs) throws IOException {
+        Map<String, TreeEntry> entries = new HashMap<>();
+        if (tree != null) {
+            for (CanonicalTreeParser parser = new CanonicalTreeParser(null, reader, tree); !parser.eof(); parser.next()) {
+                entries.put(parser.getEntryPathString(),
+                        new TreeEntry(parser.getEntryPathString(), parser.getEntryFileMode(), parser.getEntryObjectId()));
+            }
+        }
+        Map<String, Map<String, ObjectId>> subtrees = new TreeMap<>();
+        for (Map.Entry<String, ObjectId> blob : blobs.entrySet()) {
+            int slash = blob.getKey().indexOf('/');
+            if (slash < 0) {
+                entries.put(blob.getKey(), new TreeEntry(blob.getKey(), FileMode.REGULAR_FILE, blob.getValue()));
+            } else {
+                subtrees.computeIfAbsent(blob.getKey().substring(0, slash), name -> new TreeMap<>())
+                        .put(blob.getKey().substring(slash + 1), blob.getValue());
+            }
+        }
+        for (Map.Entry<String, Map<String, ObjectId>> subtree : subtrees.entrySet()) {
+            TreeEntry existing = entries.get(subtree.getKey());
+            AnyObjectId existingTree = existing != null && existing.mode == FileMode.TREE ? existing.id : null;
+            entries.put(subtree.getKey(), new TreeEntry(subtree.getKey(), FileMode.TREE,
+                    writeTree(reader, inserter, existingTree, subtree.getValue())));
+        }
+        List<TreeEntry> sorted = new ArrayList<>(entries.values());
+        Collections.sort(sorted);
+        TreeFormatter formatter = new TreeFormatter();
+        for (TreeEntry entry : sorted) {
+            formatter.append(entry.name, entry.mode, entry.id);
+        }
+        return inserter.insert(formatter);
+    }
+
+    /**
+     * Entry of a tree, ordered as git orders tree entries, i.e. names of subtrees compare as if followed by '/'.
+     */
+    private static class TreeEntry implements Comparable<TreeEntry> {
+        final String name;
+        final FileMode mode;
+        final AnyObjectId id;
+        final byte[] key;
+
+        TreeEntry(String name, FileMode mode, AnyObjectId id) {
+            this.name = name;
+            this.mode = mode;
+            this.id = id.copy();
+            this.key = (mode == FileMode.TREE ? name + "/" : name).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int compareTo(TreeEntry other) {
+            for (int i = 0; i < Math.min(key.length, other.key.length); i++) {
+                int diff = (key[i] & 0xff) - (other.key[i] & 0xff);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return key.length - other.key.length;
+        }
+    }
+
+    private static String hash(String url) {
+        try {
+            byte[] bytes = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
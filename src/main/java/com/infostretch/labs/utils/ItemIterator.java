@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+package com.infostretch.labs.utils;
+
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Lazy depth-first iterator over the items under an item group, e.g. Jenkins or a folder.
+ * Only the iterators of the item groups on the current path are held, so memory is bounded by the depth
+ * of the tree and not by its size, and nothing below the last returned item is read once iteration stops.
+ *
+ * @param <T> Type of items returned.
+ *
+ * @author Mohit Dharamshi
+ */
+public class ItemIterator<T extends Item> implements Iterator<T> {
+
+    private final Class<T> type;
+    private final Deque<Iterator<? extends Item>> path = new ArrayDeque<>();
+    private Predicate<? super T> filter = item -> true;
+    private Predicate<? super ItemGroup<?>> descend = group -> true;
+    private int skip;
+    private int remaining = Integer.MAX_VALUE;
+    private T next;
+
+    /**
+     * Creates an iterator over all items of the given type under the root, at any depth.
+     *
+     * @param root Item group whose items and nested items are iterated.
+     * @param type Type of items to return; other items are skipped, but item groups are still walked.
+     */
+    public ItemIterator(ItemGroup<? extends Item> root, Class<T> type) {
+        this.type = type;
+        path.push(root.getItems().iterator());
+    }
+
+    /**
+     * Returns only items that match the predicate, in addition to any other filter.
+     *
+     * @param predicate Condition that items must meet.
+     *
+     * @return This iterator.
+     */
+    public ItemIterator<T> filter(Predicate<? super T> predicate) {
+        Predicate<? super T> current = filter;
+        filter = item -> current.test(item) && predicate.test(item);
+        return this;
+    }
+
+    /**
+     * Walks into a nested item group only if it matches the predicate.
+     *
+     * @param predicate Condition that nested item groups must meet to be walked.
+     *
+     * @return This iterator.
+     */
+    public ItemIterator<T> descendInto(Predicate<? super ItemGroup<?>> predicate) {
+        descend = predicate;
+        return this;
+    }
+
+    /**
+     * Skips the given number of matching items.
+     *
+     * @param count Number of matching items to skip.
+     *
+     * @return This iterator.
+     */
+    public ItemIterator<T> skip(int count) {
+        skip = Math.max(0, count);
+        return this;
+    }
+
+    /**
+     * Stops the walk once the given number of items has been returned.
+     *
+     * @param count Maximum number of items to return.
+     *
+     * @return This iterator.
+     */
+    public ItemIterator<T> limit(int count) {
+        remaining = Math.max(0, count);
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && remaining > 0) {
+            next = advance();
+            if (next == null) {
+                path.clear();
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T item = next;
+        next = null;
+        if (--remaining == 0) {
+            path.clear();
+        }
+        return item;
+    }
+
+    /**
+     * Collects the remaining items.
+     *
+     * @return List of the remaining items in the order they are walked.
+     */
+    public List<T> toList() {
+        List<T> items = new ArrayList<>();
+        while (hasNext()) {
+            items.add(next());
+        }
+        return items;
+    }
+
+    private T advance() {
+        while (!path.isEmpty()) {
+            Iterator<? extends Item> items = path.peek();
+            if (!items.hasNext()) {
+                path.pop();
+                continue;
+            }
+            Item item = items.next();
+            if (item instanceof ItemGroup && descend.test((ItemGroup<?>) item)) {
+                path.push(((ItemGroup<? extends Item>) item).getItems().iterator());
+            }
+            if (type.isInstance(item) && filter.test(type.cast(item))) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    return type.cast(item);
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+package com.infostretch.labs.utils;
+
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+/**
+ * JenkinsfileBatch collects the Jenkinsfiles of a bulk conversion instead of pushing each of them right away.
+ * Jenkinsfiles are grouped by SCM repository and branch, and each group is committed and pushed once
+ * when the batch is flushed. Every job gets its own path in the repository, e.g. "jenkins/folder/job/Jenkinsfile".
+ *
+ * @author Mohit Dharamshi
+ */
+public class JenkinsfileBatch {
+    private static final Logger logger = Logger.getLogger(JenkinsfileBatch.class.getName());
+
+    /**
+     * Placeholder in the path that is replaced by the full name of the converted job.
+     */
+    public static final String JOB_NAME = "${JOB_NAME}";
+
+    /**
+     * Path of Jenkinsfiles in the repository when none is given.
+     */
+    public static final String DEFAULT_PATH = "jenkins/" + JOB_NAME + "/" + SCMUtil.JENKINSFILE;
+
+    private final String path;
+    private final String commitMessage;
+    private final Map<Target, Map<String, String>> pending = new LinkedHashMap<>();
+    private final Map<Target, Item> contexts = new HashMap<>();
+    private final Map<Target, List<CompletableFuture<Void>>> waiting = new HashMap<>();
+
+    /**
+     * @param path Path of Jenkinsfiles in the repository; {@link #JOB_NAME} is replaced by the full name of each job.
+     * @param commitMessage Commit message of each commit.
+     */
+    public JenkinsfileBatch(String path, String commitMessage) {
+        this.path = path == null || path.trim().isEmpty() ? DEFAULT_PATH : path.trim();
+        this.commitMessage = commitMessage;
+    }
+
+    /**
+     * Gets the path of the Jenkinsfile of a job.
+     *
+     * @param jobName Full name of the converted job.
+     *
+     * @return Path of the Jenkinsfile relative to the root of the repository.
+     */
+    public String getPath(String jobName) {
+        return path.replace(JOB_NAME, jobName).replaceAll("^/+", "");
+    }
+
+    /**
+     * Checks that a path can be written to a Git tree and checked out safely: it must not have empty, ".", ".."
+     * or ".git" segments, which also rules out a trailing "/".
+     *
+     * @param path Path of a Jenkinsfile relative to the root of the repository.
+     *
+     * @return True if every segment of the path is a plain name.
+     */
+    public static boolean isValidPath(String path) {
+        if (path == null) {
+            return false;
+        }
+        for (String segment : path.split("/", -1)) {
+            if (segment.isEmpty() || segment.equals(".") || segment.equals("..") || segment.equalsIgnoreCase(".git")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a Jenkinsfile to be committed when the batch is flushed.
+     *
+     * @param job Converted job; Jenkinsfiles of jobs in different folders are pushed separately since
+     *            their credentials are looked up in their own folders.
+     * @param scmType Type of SCM.
+     * @param url URL of SCM repository.
+     * @param branchName Branch of SCM where Jenkinsfile is to be pushed.
+     * @param credentialsId Credentials to commit and push to SCM.
+     * @param path Path of the Jenkinsfile in the repository, as returned by {@link #getPath(String)}.
+     * @param script Groovy script to be written in Jenkinsfile.
+     *
+     * @return Future that completes when the Jenkinsfiles of the repository and branch are pushed after the batch
+     *         is flushed, or exceptionally if that push failed.
+     *
+     * @throws IllegalArgumentException If the path is not valid, see {@link #isValidPath(String)}.
+     */
+    public synchronized CompletableFuture<Void> add(Item job, String scmType, String url, String branchName, String credentialsId,
+                                 String path, String script) {
+        if (!isValidPath(path)) {
+            throw new IllegalArgumentException("Invalid path of Jenkinsfile '" + path + "'");
+        }
+        Target key = new Target(job == null ? null : job.getParent(), scmType, url, branchName, credentialsId);
+        if (!pending.containsKey(key)) {
+            contexts.put(key, job);
+        }
+        Map<String, String> scripts = pending.computeIfAbsent(key, target -> new TreeMap<>());
+        if (scripts.put(path, script) != null) {
+            logger.warning("Jenkinsfile " + path + " in " + url + " is replaced by a later job of the batch");
+        }
+        CompletableFuture<Void> pushed = new CompletableFuture<>();
+        waiting.computeIfAbsent(key, target -> new ArrayList<>()).add(pushed);
+        return pushed;
+    }
+
+    /**
+     * Commits and pushes the pending Jenkinsfiles, once per repository and branch.
+     * The pushes run in the background, and complete the futures returned by {@link #add} for their Jenkinsfiles.
+     *
+     * @return Futures of the pushes, which complete when the pushes are done.
+     */
+    public List<CompletableFuture<Void>> flush() {
+        Map<Target, Map<String, String>> targets;
+        Map<Target, Item> jobs;
+        Map<Target, List<CompletableFuture<Void>>> added;
+        synchronized (this) {
+            targets = new LinkedHashMap<>(pending);
+            jobs = new HashMap<>(contexts);
+            added = new HashMap<>(waiting);
+            pending.clear();
+            contexts.clear();
+            waiting.clear();
+        }
+        List<CompletableFuture<Void>> pushes = new ArrayList<>();
+        for (Map.Entry<Target, Map<String, String>> target : targets.entrySet()) {
+            Target t = target.getKey();
+            logger.info("Pushing " + target.getValue().size() + " Jenkinsfiles to " + t.url + " on " + t.branchName);
+            CompletableFuture<Void> push = push(jobs.get(t), t.scmType, t.url, t.branchName, t.credentialsId, target.getValue(), commitMessage);
+            List<CompletableFuture<Void>> futures = added.get(t);
+            push.whenComplete((result, e) -> {
+                for (CompletableFuture<Void> future : futures) {
+                    if (e == null) {
+                        future.complete(null);
+                    } else {
+                        future.completeExceptionally(e);
+                    }
+                }
+            });
+            pushes.add(push);
+        }
+        return pushes;
+    }
+
+    /**
+     * Commits and pushes the Jenkinsfiles of one repository and branch.
+     *
+     * @param job One of the converted jobs, in whose folders credentials are looked up.
+     * @param scmType Type of SCM.
+     * @param url URL of SCM repository.
+     * @param branchName Branch of SCM where Jenkinsfiles are to be pushed.
+     * @param credentialsId Credentials to commit and push to SCM.
+     * @param scripts Groovy scripts by path of their Jenkinsfile.
+     * @param commitMessage Commit message of the commit.
+     *
+     * @return Future of the push.
+     */
+    protected CompletableFuture<Void> push(Item job, String scmType, String url, String branchName, String credentialsId,
+                        Map<String, String> scripts, String commitMessage) {
+        return new SCMUtil(job).pushJenkinsfiles(scripts, url, branchName, credentialsId, commitMessage, scmType);
+    }
+
+    /**
+     * Repository and branch that Jenkinsfiles are pushed to, and item group in which credentials are looked up.
+     */
+    private static final class Target {
+        final ItemGroup<?> context;
+        final String scmType, url, branchName, credentialsId;
+
+        Target(ItemGroup<?> context, String scmType, String url, String branchName, String credentialsId) {
+            this.context = context;
+            this.scmType = scmType;
+            this.url = url;
+            this.branchName = branchName;
+            this.credentialsId = credentialsId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Target)) {
+                return false;
+            }
+            Target other = (Target) o;
+            return context == other.context && Objects.equals(scmType, other.scmType) && Objects.equals(url, other.url)
+                    && Objects.equals(branchName, other.branchName) && Objects.equals(credentialsId, other.credentialsId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(context), scmType, url, branchName, credentialsId);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+package com.infostretch.labs.utils;
+
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import jenkins.model.Jenkins;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Extension point for backends that write Jenkinsfiles to an SCM repository without a workspace,
+ * e.g. through the "commit file" API of a hosting service.
+ * {@link SCMUtil} pushes with the first backend that is applicable to the repository, and falls back to the
+ * SCM plugin class, e.g. {@link com.infostretch.labs.plugins.Git}, if there is none.
+ *
+ * @author Mohit Dharamshi
+ */
+public abstract class JenkinsfilePusher implements ExtensionPoint {
+
+    /**
+     * @param scmType Type of SCM, i.e. class name of the SCM of the converted job.
+     * @param url URL of SCM repository.
+     *
+     * @return True if this backend writes Jenkinsfiles to the repository.
+     */
+    public abstract boolean isApplicable(String scmType, String url);
+
+    /**
+     * Writes several Jenkinsfiles to the repository in one commit, if the SCM has commits.
+     * Implementations return as soon as possible and complete the future once the Jenkinsfiles are written.
+     *
+     * @param scripts Groovy scripts by path of the Jenkinsfile they are written to, relative to the root of the repo.
+     * @param url URL of SCM repository where Jenkinsfiles are to be pushed.
+     * @param branchName Branch of SCM where Jenkinsfiles are to be pushed.
+     * @param commitMessage Commit message to be included in commit when pushing Jenkinsfiles.
+     * @param credentials Credentials to commit to SCM, or null if none were configured or found.
+     *
+     * @return Future that completes when the Jenkinsfiles are pushed, or exceptionally if the push failed.
+     */
+    public abstract CompletableFuture<Void> push(Map<String, String> scripts, String url, String branchName,
+                                                 String commitMessage, StandardUsernamePasswordCredentials credentials);
+
+    /**
+     * All registered backends; empty when Jenkins is not running, e.g. in unit tests.
+     *
+     * @return List of registered backends.
+     */
+    public static List<JenkinsfilePusher> all() {
+        Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins == null) {
+            return Collections.emptyList();
+        }
+        return ExtensionList.lookup(JenkinsfilePusher.class);
+    }
+
+    /**
+     * @param scmType Type of SCM.
+     * @param url URL of SCM repository.
+     *
+     * @return First registered backend that is applicable to the repository, or null if there is none.
+     */
+    public static JenkinsfilePusher find(String scmType, String url) {
+        for (JenkinsfilePusher pusher : all()) {
+            if (pusher.isApplicable(scmType, url)) {
+                return pusher;
+            }
+        }
+        return null;
+    }
+}
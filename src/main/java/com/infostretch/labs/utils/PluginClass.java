@@ -17,6 +17,9 @@
 
 package com.infostretch.labs.utils;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * List of Plugin class names mapped to node tags from XML.
  * 
@@ -27,6 +30,14 @@ public enum PluginClass {
     TestNG("hudson.plugins.testng.Publisher"),
     Git("hudson.plugins.git.GitSCM");
 
+    private static final Map<String, PluginClass> byTag = new HashMap<>();
+
+    static {
+        for (PluginClass plugin : PluginClass.values()) {
+            byTag.put(plugin.nodeTag, plugin);
+        }
+    }
+
     private String nodeTag;
 
     PluginClass(String nodeTag) {
@@ -39,11 +50,6 @@ public enum PluginClass {
      * @return PluginClass that matches given nodeTag.
      */
     public static PluginClass searchByTag(String nodeTag) {
-        for (PluginClass plugin : PluginClass.values()) {
-            if (plugin.nodeTag.equals(nodeTag)) {
-                return plugin;
-            }
-        }
-        return null;
+        return byTag.get(nodeTag);
     }
 }
@@ -17,6 +17,9 @@
 
 package com.infostretch.labs.utils;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * @author Mohit Dharamshi
  */
@@ -25,6 +28,14 @@ public enum PluginIgnoredClass {
     BuildTrigger("hudson.tasks.BuildTrigger"),
     NullSCM("hudson.scm.NullSCM");
 
+    private static final Map<String, PluginIgnoredClass> byValue = new HashMap<>();
+
+    static {
+        for (PluginIgnoredClass plugin : PluginIgnoredClass.values()) {
+            byValue.put(plugin.className, plugin);
+        }
+    }
+
     private String className;
 
     PluginIgnoredClass(String className) {
@@ -32,12 +43,7 @@ public enum PluginIgnoredClass {
     }
 
     public static PluginIgnoredClass searchByValue(String value) {
-        for (PluginIgnoredClass plugin : PluginIgnoredClass.values()) {
-            if (plugin.className.equals(value)) {
-                return plugin;
-            }
-        }
-        return null;
+        return byValue.get(value);
     }
 
 }
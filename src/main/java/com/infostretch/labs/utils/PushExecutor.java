@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+package com.infostretch.labs.utils;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.eclipse.jgit.errors.TransportException;
+import org.eclipse.jgit.transport.URIish;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * PushExecutor runs Jenkinsfile pushes in the background, so that conversions do not wait on network I/O.
+ * At most a given number of pushes run at the same time against each SCM host; further pushes to that host
+ * wait without holding a thread. A push that failed for a transient reason, i.e. a network error or a timeout,
+ * is retried with exponential backoff; other failures, e.g. rejected credentials or a missing branch, are not.
+ * Pushes to Git replay their commit themselves if the branch moved on the remote, see
+ * {@link com.infostretch.labs.plugins.Git}, so such rejections are not retried here either.
+ *
+ * The defaults can be tuned with the system properties
+ * <code>com.infostretch.labs.utils.PushExecutor.threads</code> (default 4),
+ * <code>com.infostretch.labs.utils.PushExecutor.perHost</code> (default 2),
+ * <code>com.infostretch.labs.utils.PushExecutor.retries</code> (default 3) and
+ * <code>com.infostretch.labs.utils.PushExecutor.backoff</code> (delay before the first retry in milliseconds, default 1000).
+ *
+ * @author Mohit Dharamshi
+ */
+public class PushExecutor {
+    private static final Logger logger = Logger.getLogger(PushExecutor.class.getName());
+
+    private static final String PREFIX = PushExecutor.class.getName();
+
+    /**
+     * A push, which throws an exception if it fails.
+     */
+    public interface Task {
+        void push() throws Exception;
+    }
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final int perHost;
+    private final int retries;
+    private final long backoff;
+    private final Map<String, Host> hosts = new HashMap<>();
+
+    /**
+     * @param threads Number of threads that run pushes.
+     * @param perHost Maximum number of pushes running at the same time against one host.
+     * @param retries Number of times a failed push is retried.
+     * @param backoff Delay in milliseconds before the first retry; it doubles for every further retry.
+     */
+    public PushExecutor(int threads, int perHost, int retries, long backoff) {
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, threads),
+                new NamingThreadFactory(new DaemonThreadFactory(), "ConvertToPipeline.PushExecutor"));
+        this.executor.setKeepAliveTime(60L, TimeUnit.SECONDS);
+        this.executor.allowCoreThreadTimeOut(true);
+        this.perHost = Math.max(1, perHost);
+        this.retries = Math.max(0, retries);
+        this.backoff = Math.max(0, backoff);
+    }
+
+    /**
+     * @return Executor shared by all pushes, configured by system properties.
+     */
+    public static PushExecutor getDefault() {
+        return DefaultHolder.EXECUTOR;
+    }
+
+    /**
+     * Queues a push to a repository and returns immediately.
+     *
+     * @param url URL of SCM repository, whose host limits how many pushes run at the same time.
+     * @param task Push to run.
+     *
+     * @return Future that completes when the push succeeds, or exceptionally once all retries have failed.
+     */
+    public CompletableFuture<Void> submit(String url, Task task) {
+        Attempt attempt = new Attempt(getHost(url), url, task);
+        start(attempt);
+        return attempt.future;
+    }
+
+    private Host getHost(String url) {
+        String name = "";
+        try {
+            URIish uri = new URIish(url);
+            if (uri.getHost() != null) {
+                name = uri.getHost().toLowerCase();
+            }
+        } catch (URISyntaxException e) {
+            logger.warning("Could not find host of " + url + ": " + e.getMessage());
+        }
+        synchronized (hosts) {
+            return hosts.computeIfAbsent(name, host -> new Host());
+        }
+    }
+
+    private void start(Attempt attempt) {
+        synchronized (attempt.host) {
+            if (attempt.host.running >= perHost) {
+                attempt.host.waiting.add(attempt);
+                return;
+            }
+            attempt.host.running++;
+        }
+        executor.execute(attempt);
+    }
+
+    private void release(Host host) {
+        Attempt next;
+        synchronized (host) {
+            next = host.waiting.poll();
+            if (next == null) {
+                host.running--;
+                return;
+            }
+        }
+        executor.execute(next);
+    }
+
+    /**
+     * Pushes that are running and waiting against one host.
+     */
+    private static final class Host {
+        final Deque<Attempt> waiting = new ArrayDeque<>();
+        int running;
+    }
+
+    /**
+     * @param e Failure of a push.
+     *
+     * @return True if the failure, or one of its causes, is a network error or timeout that may not happen again.
+     */
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof SocketException || cause instanceof SocketTimeoutException) {
+                return true;
+            }
+            if (cause instanceof TransportException && cause.getMessage() != null) {
+                String message = cause.getMessage().toLowerCase();
+                if (message.contains("timed out") || message.contains("timeout") || message.contains("connection reset")
+                        || message.contains("connection refused")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private final class Attempt implements Runnable {
+        final Host host;
+        final String url;
+        final Task task;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        int failures;
+
+        Attempt(Host host, String url, Task task) {
+            this.host = host;
+            this.url = url;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.push();
+                future.complete(null);
+            } catch (Exception e) {
+                failures++;
+                if (failures > retries || !isTransient(e)) {
+                    future.completeExceptionally(e);
+                } else {
+                    long delay = backoff << Math.min(failures - 1, 20);
+                    logger.warning("Push to " + url + " failed (" + e.getMessage() + "), retry " + failures + " of "
+                            + retries + " in " + delay + " ms");
+                    executor.schedule(() -> start(this), delay, TimeUnit.MILLISECONDS);
+                }
+            } catch (Error e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                release(host);
+            }
+        }
+    }
+
+    /**
+     * Lazily created default executor.
+     */
+    private static class DefaultHolder {
+        private static final PushExecutor EXECUTOR = new PushExecutor(Integer.getInteger(PREFIX + ".threads", 4),
+                Integer.getInteger(PREFIX + ".perHost", 2), Integer.getInteger(PREFIX + ".retries", 3),
+                Long.getLong(PREFIX + ".backoff", 1000L));
+    }
+}
@@ -17,12 +17,11 @@
 
 package com.infostretch.labs.utils;
 
-import com.cloudbees.plugins.credentials.CredentialsMatchers;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
 import com.google.common.base.Strings;
+import com.infostretch.labs.plugins.PluginRegistry;
 import com.infostretch.labs.plugins.Plugins;
 import hudson.model.Item;
-import hudson.security.ACL;
 import jenkins.model.Jenkins;
 import org.apache.commons.io.FileUtils;
 import org.eclipse.jgit.transport.CredentialsProvider;
@@ -30,9 +29,10 @@ import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
 import java.util.Collections;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
 
 /**
  * SCMUtil provides functionality to handle Jenkinsfile operations for various SCMs.
@@ -41,8 +41,32 @@ import java.util.List;
  */
 
 public class SCMUtil {
+    private static final Logger logger = Logger.getLogger(SCMUtil.class.getName());
+
+    /**
+     * Path of the Jenkinsfile in the SCM repository.
+     */
+    public static final String JENKINSFILE = "Jenkinsfile";
+
+    private final Item context;
+
+    /**
+     * Constructor for pushes whose credentials are looked up in Jenkins only.
+     */
+    public SCMUtil() {
+        this(null);
+    }
+
+    /**
+     * @param context Job being converted; credentials are looked up in its folders as well as in Jenkins.
+     */
+    public SCMUtil(Item context) {
+        this.context = context;
+    }
+
     /**
      * Public method to create Jenkinsfile from script and push to given SCM repo.
+     * The push runs in the background on {@link PushExecutor}.
      *
      * @param script Groovy script to be written in Jenkinsfile
      * @param url URL of SCM repository where Jenkinsfile is to be pushed.
@@ -50,23 +74,61 @@ public class SCMUtil {
      * @param credentialsId Credentials to checkout, commit and push to SCM.
      * @param commitMessage Commit message to be included in commit when pushing Jenkinsfile.
      * @param scmType Type of SCM.
+     *
+     * @return Future that completes when the Jenkinsfile is pushed, or exceptionally if the push failed.
      */
-    public void pushJenkinsfile(String script, String url, String branchName, String credentialsId, String commitMessage, String scmType) {
-        StandardUsernamePasswordCredentials credentials = getCredentials(credentialsId);
-        CredentialsProvider credentialsProvider = new UsernamePasswordCredentialsProvider(credentials.getUsername(),credentials.getPassword().getPlainText());
-        File workSpace = new File(Jenkins.getInstance().getRootDir(),"plugins/convert-to-pipeline/ws");
-        cleanWorkSpace(workSpace);
-        try {
-            Class pluginClass = Plugins.getPluginClass(scmType);
-            if(pluginClass != null) {
-                Constructor<Plugins> pluginConstructor = pluginClass.getConstructor();
-                Plugins plugin = pluginConstructor.newInstance();
-                plugin.pushJenkinsfile(workSpace, script, url, branchName, commitMessage, credentialsProvider);
+    public CompletableFuture<Void> pushJenkinsfile(String script, String url, String branchName, String credentialsId, String commitMessage, String scmType) {
+        return pushJenkinsfiles(Collections.singletonMap(JENKINSFILE, script), url, branchName, credentialsId, commitMessage, scmType);
+    }
+
+    /**
+     * Public method to create several Jenkinsfiles from scripts and push them to given SCM repo in one commit.
+     * The Jenkinsfiles are written by the first {@link JenkinsfilePusher} applicable to the repo, if any.
+     * Otherwise the push runs in the background on {@link PushExecutor}, which retries it if it fails.
+     *
+     * @param scripts Groovy scripts by path of the Jenkinsfile they are written to, relative to the root of the repo.
+     * @param url URL of SCM repository where Jenkinsfiles are to be pushed.
+     * @param branchName Branch of SCM where Jenkinsfiles are to be pushed.
+     * @param credentialsId Credentials to checkout, commit and push to SCM.
+     * @param commitMessage Commit message to be included in commit when pushing Jenkinsfiles.
+     * @param scmType Type of SCM.
+     *
+     * @return Future that completes when the Jenkinsfiles are pushed, or exceptionally if the push failed.
+     */
+    public CompletableFuture<Void> pushJenkinsfiles(Map<String, String> scripts, String url, String branchName, String credentialsId, String commitMessage, String scmType) {
+        JenkinsfilePusher pusher = JenkinsfilePusher.find(scmType, url);
+        CompletableFuture<Void> push;
+        if (pusher != null) {
+            try {
+                push = pusher.push(scripts, url, branchName, commitMessage, getCredentials(credentialsId, url));
+            } catch (RuntimeException e) {
+                push = new CompletableFuture<>();
+                push.completeExceptionally(e);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+        } else {
+            push = PushExecutor.getDefault()
+                    .submit(url, () -> push(scripts, url, branchName, credentialsId, commitMessage, scmType));
+        }
+        return push.whenComplete((result, e) -> {
+            if (e == null) {
+                logger.info("Pushed " + scripts.keySet() + " to " + url);
+            } else {
+                logger.severe("Could not push " + scripts.keySet() + " to " + url + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private void push(Map<String, String> scripts, String url, String branchName, String credentialsId, String commitMessage, String scmType) {
+        StandardUsernamePasswordCredentials credentials = getCredentials(credentialsId, url);
+        CredentialsProvider credentialsProvider = null;
+        if (credentials != null) {
+            credentialsProvider = new UsernamePasswordCredentialsProvider(credentials.getUsername(), credentials.getPassword().getPlainText());
+        }
+        Plugins plugin = PluginRegistry.create(scmType);
+        if(plugin != null) {
+            plugin.pushJenkinsfiles(new File(Jenkins.getInstance().getRootDir(), "plugins/convert-to-pipeline"),
+                    scripts, url, branchName, commitMessage, credentialsProvider);
         }
-        cleanWorkSpace(workSpace);
     }
 
     /**
@@ -75,7 +137,9 @@ public class SCMUtil {
      *
      * @param workSpace Workspace in which the Jenkinsfile will be added.
      * @param script Groovy script to be written in Jenkinsfile.
+     * @deprecated Jenkinsfiles are committed without a working tree; see {@link GitMirror#commit}.
      */
+    @Deprecated
     public static void writeJenkinsfile(File workSpace, String script) {
         try {
             File jenkinsFile = new File(workSpace.getAbsolutePath()+"/Jenkinsfile");
@@ -86,46 +150,19 @@ public class SCMUtil {
     }
 
     /**
-     * Deletes temporary workspace if it exists.
-     */
-    private void cleanWorkSpace(File workSpace) {
-        if (workSpace.exists()) {
-            try {
-                FileUtils.deleteDirectory(workSpace);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-    }
-
-    /**
-     * Get Standard username and password credentials from credentials ID.
+     * Get Standard username and password credentials from credentials ID, as seen by the context item.
+     * Credentials that are configured but not found are logged, and the push goes on without them.
      *
      * @param credentialId Credentials ID of repo.
+     * @param url URL of repo.
      *
      * @return StandardUsernamePasswordCredentials object of matching credentialsId.
      */
-    private StandardUsernamePasswordCredentials getCredentials(String credentialId) {
-        if (!Strings.isNullOrEmpty(credentialId)) {
-            StandardUsernamePasswordCredentials cred = CredentialsMatchers.firstOrNull(fetchAllCredentials(), CredentialsMatchers.withId(credentialId));
-            if (cred != null) {
-                return cred;
-            }
+    private StandardUsernamePasswordCredentials getCredentials(String credentialId, String url) {
+        StandardUsernamePasswordCredentials credentials = CredentialsCache.get(context, credentialId, url);
+        if (credentials == null && !Strings.isNullOrEmpty(credentialId)) {
+            logger.warning("Credentials " + credentialId + " not found for " + url + "; pushing without credentials");
         }
-        return null;
-    }
-
-    /**
-     * List of all credentials in Jenkins against which credential matching will be performed.
-     *
-     * @return List of all StandardUsernamePasswordCredentials in Jenkins
-     */
-    private List<StandardUsernamePasswordCredentials> fetchAllCredentials() {
-        return com.cloudbees.plugins.credentials.CredentialsProvider.lookupCredentials(
-                StandardUsernamePasswordCredentials.class,
-                (Item) null,
-                ACL.SYSTEM,
-                Collections.emptyList()
-        );
+        return credentials;
     }
 }
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.utils;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * TagIndex finds the first descendant element of a node by tag name, like
+ * <code>getElementsByTagName(tag).item(0)</code>, without searching the tree on every call.
+ * The descendants of a node are indexed in one traversal on first use and the index is kept as user data of the node,
+ * so further look ups on the same node take constant time.
+ * Nodes are expected not to change once they are indexed, which holds for the job configurations being transformed.
+ *
+ * @author Mohit Dharamshi
+ */
+public final class TagIndex {
+
+    private static final String KEY = TagIndex.class.getName();
+
+    private TagIndex() {
+    }
+
+    /**
+     * Gets first descendant element of node with given tag name in document order.
+     *
+     * @param node Document or element to search in.
+     * @param tag Tag name to find.
+     * @return First matching element or null if there is none.
+     */
+    public static Element getFirstElement(Node node, String tag) {
+        return getIndex(node).get(tag);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Element> getIndex(Node node) {
+        Map<String, Element> index = (Map<String, Element>) node.getUserData(KEY);
+        if (index == null) {
+            index = buildIndex(node);
+            node.setUserData(KEY, index, null);
+        }
+        return index;
+    }
+
+    private static Map<String, Element> buildIndex(Node root) {
+        Map<String, Element> index = new HashMap<>();
+        Node current = root.getFirstChild();
+        while (current != null) {
+            if (current.getNodeType() == Node.ELEMENT_NODE) {
+                index.putIfAbsent(current.getNodeName(), (Element) current);
+            }
+            Node next = current.getFirstChild();
+            while (next == null && current != root) {
+                next = current.getNextSibling();
+                current = current.getParentNode();
+            }
+            current = next;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright 2017 Infostretch Corporation
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ * OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE
+ *
+ * You should have received a copy of the GNU General Public License along with this program in the name of LICENSE.txt in the root folder of the distribution. If not, see https://opensource.org/licenses/gpl-3.0.html
+ *
+ *
+ * For any inquiry or need additional information, please contact labs_support@infostretch.com
+ *******************************************************************************/
+
+package com.infostretch.labs.utils;
+
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.logging.Logger;
+
+/**
+ * XmlUtil provides securely configured XML parsers that are created once per thread
+ * and reused by every conversion, instead of looking up and configuring factories for each job.
+ * Instances are never shared between threads, so concurrent conversions do not interfere.
+ * Serializers are created from a shared factory for every document they write.
+ *
+ * @author Mohit Dharamshi
+ */
+public final class XmlUtil {
+    private static final Logger logger = Logger.getLogger(XmlUtil.class.getName());
+
+    private static final DocumentBuilderFactory documentBuilderFactory = createDocumentBuilderFactory();
+    private static final XMLInputFactory inputFactory = createInputFactory();
+    private static final TransformerFactory transformerFactory = createTransformerFactory();
+
+    private static final ThreadLocal<DocumentBuilder> documentBuilder = ThreadLocal.withInitial(XmlUtil::createDocumentBuilder);
+
+    private XmlUtil() {
+    }
+
+    /**
+     * @return New empty document.
+     * @throws ParserConfigurationException If no document builder could be created.
+     */
+    public static Document newDocument() throws ParserConfigurationException {
+        return getDocumentBuilder().newDocument();
+    }
+
+    /**
+     * Gets the document builder of the current thread. It must not be handed to other threads.
+     * The builder is reset for each use, which also drops its entity resolver, so the resolver is installed again.
+     *
+     * @return Document builder which rejects DTDs and does not resolve external entities.
+     * @throws ParserConfigurationException If no document builder could be created.
+     */
+    public static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilder builder = documentBuilder.get();
+        if (builder == null) {
+            documentBuilder.remove();
+            throw new ParserConfigurationException("Unable to create document builder");
+        }
+        builder.reset();
+        builder.setEntityResolver(XmlUtil::rejectEntity);
+        return builder;
+    }
+
+    /**
+     * Creates a streaming reader which does not resolve DTDs or external entities.
+     *
+     * @param in Stream to read. It is not closed by the reader.
+     * @return Reader of the stream.
+     * @throws XMLStreamException If the reader could not be created.
+     */
+    public static XMLStreamReader createXMLStreamReader(InputStream in) throws XMLStreamException {
+        return inputFactory.createXMLStreamReader(in);
+    }
+
+    /**
+     * Creates a serializer which writes UTF-8 XML.
+     *
+     * @param omitDeclaration True to omit the XML declaration, e.g. for a single element.
+     * @param indent True to indent elements by 2 spaces.
+     * @return Serializer for DOM sources.
+     * @throws TransformerConfigurationException If no serializer could be created.
+     */
+    public static Transformer newSerializer(boolean omitDeclaration, boolean indent) throws TransformerConfigurationException {
+        Transformer transformer;
+        synchronized (transformerFactory) {
+            transformer = transformerFactory.newTransformer();
+        }
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, omitDeclaration ? "yes" : "no");
+        transformer.setOutputProperty(OutputKeys.INDENT, indent ? "yes" : "no");
+        if (indent) {
+            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+        }
+        return transformer;
+    }
+
+    private static DocumentBuilder createDocumentBuilder() {
+        synchronized (documentBuilderFactory) {
+            try {
+                DocumentBuilder builder = documentBuilderFactory.newDocumentBuilder();
+                builder.setEntityResolver(XmlUtil::rejectEntity);
+                return builder;
+            } catch (ParserConfigurationException e) {
+                logger.severe("Unable to create document builder: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private static InputSource rejectEntity(String publicId, String systemId) throws IOException {
+        throw new IOException("External entities are not allowed: " + systemId);
+    }
+
+    private static DocumentBuilderFactory createDocumentBuilderFactory() {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        setFeature(factory, XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        setFeature(factory, "http://apache.org/xml/features/disallow-doctype-decl", true);
+        setFeature(factory, "http://xml.org/sax/features/external-general-entities", false);
+        setFeature(factory, "http://xml.org/sax/features/external-parameter-entities", false);
+        setFeature(factory, "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        factory.setXIncludeAware(false);
+        return factory;
+    }
+
+    private static void setFeature(DocumentBuilderFactory factory, String feature, boolean value) {
+        try {
+            factory.setFeature(feature, value);
+        } catch (ParserConfigurationException e) {
+            logger.warning("XML parser does not support feature " + feature);
+        }
+    }
+
+    private static TransformerFactory createTransformerFactory() {
+        TransformerFactory factory = TransformerFactory.newInstance();
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        } catch (TransformerConfigurationException e) {
+            logger.warning("XML serializer does not support secure processing");
+        }
+        return factory;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+}
@@ -0,0 +1,43 @@
+package com.infostretch.labs.pipeline;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class ScriptEmitterTest {
+
+    @Test
+    public void indentsLinesByDepth() {
+        ScriptEmitter emitter = new ScriptEmitter();
+        emitter.append("node {\n");
+        emitter.setDepth(1);
+        emitter.indentation().append("stage ('Build') {\n");
+        emitter.setDepth(2);
+        emitter.indentation().append("sh 'make'\n");
+        emitter.setDepth(1);
+        emitter.indentation().append("}\n");
+        emitter.setDepth(0);
+        emitter.indentation().append("}");
+        assertEquals("node {\n\tstage ('Build') {\n\t\tsh 'make'\n\t}\n}", emitter.toString());
+    }
+
+    @Test
+    public void writesStraightToSink() {
+        StringWriter writer = new StringWriter();
+        ScriptEmitter emitter = new ScriptEmitter(writer, "  ");
+        emitter.setDepth(2);
+        emitter.indentation().append("echo 'hi'");
+        assertEquals("    echo 'hi'", writer.toString());
+    }
+
+    @Test
+    public void depthDoesNotGoBelowZero() {
+        StringBuilder sink = new StringBuilder();
+        ScriptEmitter emitter = new ScriptEmitter(sink);
+        emitter.setDepth(-1);
+        emitter.indentation().append("x");
+        assertEquals("x", sink.toString());
+    }
+}
@@ -0,0 +1,104 @@
+package com.infostretch.labs.pipeline;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ScriptRendererTest {
+
+    private static String render(Block pipeline, ScriptRenderer.Syntax syntax) {
+        ScriptEmitter emitter = new ScriptEmitter();
+        new ScriptRenderer(emitter).render(pipeline, syntax);
+        return emitter.toString();
+    }
+
+    private static Block pipeline(Block... nodes) {
+        Block timestamps = Block.timestamps();
+        for (Block node : nodes) {
+            timestamps.add(node);
+        }
+        return Block.sequence().add(new Comment("Powered by Infostretch")).add(timestamps);
+    }
+
+    @Test
+    public void rendersScriptedPipeline() {
+        Block build = Block.stage("job - Build")
+                .add(new Comment("Ant build step"))
+                .add(Block.step("withEnv", "[\"PATH+ANT=${tool 'ant'}/bin\"]")
+                        .add(Block.code("if(isUnix())").add(Step.of("sh \"ant dist\""))
+                                .orElse(Block.code("").add(Step.of("bat \"ant dist\"")))));
+        assertEquals("// Powered by Infostretch\n\ntimestamps {\nnode ('linux') {\n"
+                        + "\tstage ('job - Build') {\n"
+                        + "\t\t// Ant build step\n"
+                        + "\t\twithEnv([\"PATH+ANT=${tool 'ant'}/bin\"]) {\n"
+                        + "\t\t\tif(isUnix()) {\n\t\t\t\tsh \"ant dist\"\n\t\t\t} else {\n\t\t\t\tbat \"ant dist\"\n\t\t\t}\n"
+                        + "\t\t}\n\t}\n}\n}\n",
+                render(pipeline(Block.node("linux").add(build)), ScriptRenderer.Syntax.SCRIPTED));
+    }
+
+    @Test
+    public void writesContinuationLinesOfStepsVerbatim() {
+        Block stage = Block.stage("Build")
+                .add(Step.of("sh '''\nmake\n'''"))
+                .add(Step.code("def nodeHome = tool 'node'\nenv.PATH=\"${nodeHome}/bin\""))
+                .add(new Comment("first\nsecond"));
+        assertEquals("stage ('Build') {\n\tsh '''\nmake\n'''\n\tdef nodeHome = tool 'node'\n\tenv.PATH=\"${nodeHome}/bin\"\n"
+                        + "\t/*\n\tfirst\n\tsecond\n\t*/\n}\n",
+                render(Block.sequence().add(stage), ScriptRenderer.Syntax.SCRIPTED));
+    }
+
+    @Test
+    public void writesArgumentsInOrder() {
+        Arguments arguments = new Arguments().addQuoted("maven", "maven3").add("mavenLocalRepo", "\"$WORKSPACE/.repository\"");
+        assertEquals("junit()", Step.of("junit", new Arguments()).getText());
+        assertEquals("withMaven maven: 'maven3', mavenLocalRepo: \"$WORKSPACE/.repository\"",
+                Step.of("withMaven", arguments).getText());
+    }
+
+    @Test
+    public void mergesAdjacentNodesOnSameLabel() {
+        Block pipeline = pipeline(Block.node("linux").add(Block.stage("first - Build")),
+                Block.node("LINUX").add(Block.stage("second - Build")),
+                Block.node(null).add(Block.stage("third - Build")));
+        PipelineOptimizer.mergeAdjacentNodes(pipeline);
+        Block timestamps = (Block) pipeline.getStatements().get(1);
+        assertEquals(2, timestamps.getStatements().size());
+        assertEquals(2, ((Block) timestamps.getStatements().get(0)).getStatements().size());
+    }
+
+    @Test
+    public void rendersDeclarativePipeline() {
+        Block build = Block.stage("job - Build")
+                .add(new Comment("Shell build step"))
+                .add(Step.of("sh 'make'"));
+        Block post = Block.stage("job - Post build actions")
+                .add(Block.code("if(isUnix())").add(Step.of("sh 'ls'")));
+        assertEquals("// Powered by Infostretch\n\npipeline {\n"
+                        + "\tagent { label 'linux' }\n"
+                        + "\toptions {\n\t\ttimestamps()\n\t}\n"
+                        + "\tstages {\n"
+                        + "\t\tstage ('job - Build') {\n\t\t\tsteps {\n"
+                        + "\t\t\t\t// Shell build step\n\t\t\t\tsh 'make'\n"
+                        + "\t\t\t}\n\t\t}\n"
+                        + "\t\tstage ('job - Post build actions') {\n\t\t\tsteps {\n\t\t\t\tscript {\n"
+                        + "\t\t\t\t\tif(isUnix()) {\n\t\t\t\t\t\tsh 'ls'\n\t\t\t\t\t}\n"
+                        + "\t\t\t\t}\n\t\t\t}\n\t\t}\n"
+                        + "\t}\n}\n",
+                render(pipeline(Block.node("linux").add(build).add(post)), ScriptRenderer.Syntax.DECLARATIVE));
+    }
+
+    @Test
+    public void givesEachStageItsAgentIfLabelsDiffer() {
+        String script = render(pipeline(Block.node("linux").add(Block.stage("first").add(Step.of("sh 'make'"))),
+                Block.node("windows").add(Block.stage("second"))), ScriptRenderer.Syntax.DECLARATIVE);
+        assertEquals("// Powered by Infostretch\n\npipeline {\n"
+                        + "\tagent none\n"
+                        + "\toptions {\n\t\ttimestamps()\n\t}\n"
+                        + "\tstages {\n"
+                        + "\t\tstage ('first') {\n\t\t\tagent { label 'linux' }\n\t\t\tsteps {\n\t\t\t\tsh 'make'\n\t\t\t}\n\t\t}\n"
+                        + "\t\tstage ('second') {\n\t\t\tagent { label 'windows' }\n\t\t\tsteps {\n"
+                        + "\t\t\t\techo 'No steps converted'\n\t\t\t}\n\t\t}\n"
+                        + "\t}\n}\n",
+                script);
+    }
+}
@@ -0,0 +1,151 @@
+package com.infostretch.labs.plugins;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class GitTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File remote;
+    private File directory;
+
+    @Before
+    public void createRemote() throws Exception {
+        remote = tmp.newFolder("remote.git");
+        org.eclipse.jgit.api.Git.init().setBare(true).setDirectory(remote).call().close();
+        directory = tmp.newFolder("plugin");
+        commitToRemote("README", "readme");
+    }
+
+    private void commitToRemote(String path, String content) throws Exception {
+        File clone = tmp.newFolder();
+        try (org.eclipse.jgit.api.Git git = org.eclipse.jgit.api.Git.cloneRepository()
+                .setURI(remote.toURI().toString()).setDirectory(clone).call()) {
+            FileUtils.writeStringToFile(new File(clone, path), content, StandardCharsets.UTF_8);
+            git.add().addFilepattern(path).call();
+            git.commit().setMessage("Add " + path).call();
+            git.push().call();
+        }
+    }
+
+    private String readFromRemote(String path) throws Exception {
+        try (Repository repository = org.eclipse.jgit.api.Git.open(remote).getRepository();
+             RevWalk walk = new RevWalk(repository)) {
+            RevCommit tip = walk.parseCommit(repository.resolve(Constants.R_HEADS + "master"));
+            TreeWalk tree = TreeWalk.forPath(repository, path, tip.getTree());
+            assertNotNull(path + " not found", tree);
+            return new String(repository.open(tree.getObjectId(0)).getBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private void push(String script) {
+        new Git().pushJenkinsfile(directory, script, remote.toURI().toString(), "*/master", "Add Jenkinsfile", null);
+    }
+
+    @Test
+    public void pushesJenkinsfileThroughMirror() throws Exception {
+        push("node {}");
+        assertEquals("node {}", readFromRemote("Jenkinsfile"));
+        assertEquals("readme", readFromRemote("README"));
+        File[] mirrors = new File(directory, "mirrors").listFiles();
+        assertEquals(1, mirrors.length);
+
+        commitToRemote("CHANGES", "changes");
+        push("node { echo 'again' }");
+        assertEquals("node { echo 'again' }", readFromRemote("Jenkinsfile"));
+        assertEquals("changes", readFromRemote("CHANGES"));
+
+        try (Repository mirror = org.eclipse.jgit.api.Git.open(mirrors[0]).getRepository()) {
+            ObjectId tip = mirror.resolve(Constants.R_HEADS + "master");
+            try (Repository repository = org.eclipse.jgit.api.Git.open(remote).getRepository()) {
+                assertEquals(repository.resolve(Constants.R_HEADS + "master"), tip);
+            }
+            assertTrue(mirror.isBare());
+        }
+    }
+
+    @Test
+    public void pushesSeveralJenkinsfilesInOneCommit() throws Exception {
+        Map<String, String> scripts = new HashMap<>();
+        scripts.put("jenkins/a/Jenkinsfile", "node { echo 'a' }");
+        scripts.put("jenkins/b/Jenkinsfile", "node { echo 'b' }");
+        new Git().pushJenkinsfiles(directory, scripts, remote.toURI().toString(), "master", "Add Jenkinsfiles", null);
+
+        assertEquals("node { echo 'a' }", readFromRemote("jenkins/a/Jenkinsfile"));
+        assertEquals("node { echo 'b' }", readFromRemote("jenkins/b/Jenkinsfile"));
+        try (Repository repository = org.eclipse.jgit.api.Git.open(remote).getRepository();
+             RevWalk walk = new RevWalk(repository)) {
+            RevCommit tip = walk.parseCommit(repository.resolve(Constants.R_HEADS + "master"));
+            assertEquals("Add Jenkinsfiles", tip.getFullMessage());
+            assertEquals("Add README", walk.parseCommit(tip.getParent(0)).getFullMessage());
+        }
+    }
+
+    @Test
+    public void concurrentPushesToSameRepositoryAllLand() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> pushes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final String path = "jenkins/job" + i + "/Jenkinsfile";
+            pushes.add(executor.submit(() -> {
+                new Git().pushJenkinsfiles(directory, Collections.singletonMap(path, path), remote.toURI().toString(),
+                        "master", "Add " + path, null);
+            }));
+        }
+        for (Future<?> push : pushes) {
+            push.get();
+        }
+        executor.shutdown();
+        for (int i = 0; i < 8; i++) {
+            assertEquals("jenkins/job" + i + "/Jenkinsfile", readFromRemote("jenkins/job" + i + "/Jenkinsfile"));
+        }
+    }
+
+    @Test
+    public void pushesFromSeparateMirrorsDoNotOverwriteEachOther() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<?>> pushes = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final File root = tmp.newFolder("controller" + i);
+            final String prefix = "jenkins/controller" + i + "/job";
+            pushes.add(executor.submit(() -> {
+                for (int j = 0; j < 4; j++) {
+                    new Git().pushJenkinsfiles(root, Collections.singletonMap(prefix + j, prefix + j),
+                            remote.toURI().toString(), "master", "Add " + prefix + j, null);
+                }
+            }));
+        }
+        for (Future<?> push : pushes) {
+            push.get();
+        }
+        executor.shutdown();
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertEquals("jenkins/controller" + i + "/job" + j, readFromRemote("jenkins/controller" + i + "/job" + j));
+            }
+        }
+        assertEquals("readme", readFromRemote("README"));
+    }
+}
@@ -0,0 +1,40 @@
+package com.infostretch.labs.plugins;
+
+import com.infostretch.labs.transformers.Transformer;
+import hudson.ExtensionList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.w3c.dom.Node;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+public class PluginHandlerTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void handlerAddedAfterLookupIsUsed() {
+        assertNull(PluginRegistry.create("com.example.LateBuilder"));
+
+        ExtensionList.lookup(PluginHandler.class).add(new PluginHandler() {
+            @Override
+            public Collection<String> getNodeNames() {
+                return Collections.singletonList("com.example.LateBuilder");
+            }
+
+            @Override
+            public Plugins create(Transformer transformer, Node node) {
+                return new Shell(transformer, node);
+            }
+        });
+
+        assertThat(PluginRegistry.create("com.example.LateBuilder"), instanceOf(Shell.class));
+    }
+}
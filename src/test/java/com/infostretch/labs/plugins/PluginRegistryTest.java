@@ -0,0 +1,39 @@
+package com.infostretch.labs.plugins;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class PluginRegistryTest {
+
+    @Test
+    public void resolvesByClassName() {
+        assertEquals(Shell.class, PluginRegistry.getPluginClass("hudson.tasks.Shell"));
+        assertThat(PluginRegistry.create("hudson.tasks.Shell", null, null), instanceOf(Shell.class));
+    }
+
+    @Test
+    public void resolvesByPluginClassEnum() {
+        assertEquals(TestNG.class, PluginRegistry.getPluginClass("hudson.plugins.testng.Publisher"));
+        assertThat(PluginRegistry.create("hudson.plugins.git.GitSCM"), instanceOf(Git.class));
+    }
+
+    @Test
+    public void ignoredNodeHasNoPlugin() {
+        assertTrue(PluginRegistry.isIgnored("hudson.tasks.BuildTrigger"));
+        assertNull(PluginRegistry.create("hudson.tasks.BuildTrigger", null, null));
+    }
+
+    @Test
+    public void unsupportedNodeHasNoPlugin() {
+        for (int i = 0; i < 2; i++) {
+            assertFalse(PluginRegistry.isIgnored("com.example.UnknownBuilder"));
+            assertNull(PluginRegistry.create("com.example.UnknownBuilder", null, null));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.infostretch.labs.transformers;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConfigSectionReaderTest {
+
+    private static final String[] FIXTURES = {"freestyle-config.xml", "shell-script-simple.xml", "shell-script-unstable-return.xml"};
+
+    private static String transform(Document doc) throws Exception {
+        Transformer transformer = new Transformer(new HashMap());
+        String script = transformer.transformXml(doc, "test");
+        return script + IOUtils.toString(transformer.getStream(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void sameConversionAsFullDocument() throws Exception {
+        for (String fixture : FIXTURES) {
+            Document full;
+            try (InputStream is = getClass().getResourceAsStream("/xml/" + fixture)) {
+                full = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(is);
+            }
+            Document sections;
+            try (InputStream is = getClass().getResourceAsStream("/xml/" + fixture)) {
+                sections = ConfigSectionReader.read(is, Transformer.SECTIONS);
+            }
+            assertEquals(fixture, transform(full), transform(sections));
+        }
+    }
+
+    @Test
+    public void keepsOnlyRequestedSectionsWithTheirContent() throws Exception {
+        String xml = "<?xml version='1.1' encoding='UTF-8'?>\n<project>\n  <actions><a>1</a></actions>\n"
+                + "  <builders>\n    <!-- step -->\n    <hudson.tasks.Shell plugin=\"x@1\">\n"
+                + "      <command><![CDATA[echo <1>]]> &amp; more</command>\n    </hudson.tasks.Shell>\n  </builders>\n</project>";
+        Document doc = ConfigSectionReader.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), Arrays.asList("builders"));
+
+        Element root = doc.getDocumentElement();
+        assertEquals("project", root.getNodeName());
+        assertEquals(1, root.getChildNodes().getLength());
+        Element builders = (Element) root.getFirstChild();
+        assertEquals(5, builders.getChildNodes().getLength());
+        assertEquals(Node.COMMENT_NODE, builders.getChildNodes().item(1).getNodeType());
+        Element shell = (Element) builders.getElementsByTagName("hudson.tasks.Shell").item(0);
+        assertEquals("x@1", shell.getAttribute("plugin"));
+        assertEquals("echo <1> & more", shell.getElementsByTagName("command").item(0).getTextContent());
+    }
+}
@@ -0,0 +1,121 @@
+package com.infostretch.labs.transformers;
+
+import com.infostretch.labs.pipeline.Block;
+import com.infostretch.labs.pipeline.Step;
+import com.infostretch.labs.utils.XmlUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class FragmentCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final byte[] CONFIG = "<project><builders/></project>".getBytes(StandardCharsets.UTF_8);
+
+    private static JobFragment fragment(String jobName) throws Exception {
+        Document dest = XmlUtil.newDocument();
+        dest.appendChild(dest.createElement("flow-definition")).appendChild(dest.createElement("description")).setTextContent("a & b");
+        Block body = Block.sequence().add(Block.stage(jobName + " - Build").add(Step.of("sh 'make'")));
+        return new JobFragment(jobName, "linux", "https://example.com/repo.git", Block.sequence(), body, dest,
+                dest.getDocumentElement(), "hudson.plugins.git.GitSCM", "https://example.com/repo.git", "*/master", "creds");
+    }
+
+    private static String key(FragmentCache cache, String jobName, byte[] config) throws Exception {
+        return cache.key(cache.digest(jobName, new ByteArrayInputStream(config)));
+    }
+
+    @Test
+    public void keyDependsOnVersionJobAndConfig() throws Exception {
+        FragmentCache cache = new FragmentCache(folder.getRoot(), "1.0", Long.MAX_VALUE);
+        String key = key(cache, "job", CONFIG);
+        assertEquals(key, key(cache, "job", CONFIG.clone()));
+        assertNotEquals(key, key(cache, "other", CONFIG));
+        assertNotEquals(key, key(cache, "job", "<project/>".getBytes(StandardCharsets.UTF_8)));
+        assertNotEquals(key, key(new FragmentCache(folder.getRoot(), "1.1", Long.MAX_VALUE), "job", CONFIG));
+    }
+
+    @Test
+    public void keyDependsOnHandlers() throws Exception {
+        String key = key(new FragmentCache(folder.getRoot(), "1.0", Long.MAX_VALUE), "job", CONFIG);
+        FragmentCache withHandler = new FragmentCache(folder.getRoot(), "1.0", Long.MAX_VALUE) {
+            @Override
+            protected List<String> getHandlers() {
+                return Collections.singletonList("com.example.Handler@1.0");
+            }
+        };
+        assertNotEquals(key, key(withHandler, "job", CONFIG));
+    }
+
+    @Test
+    public void keyIncludesUnreadConfig() throws Exception {
+        FragmentCache cache = new FragmentCache(folder.getRoot(), "1.0", Long.MAX_VALUE);
+        DigestInputStream in = cache.digest("job", new ByteArrayInputStream(CONFIG));
+        assertEquals('<', in.read());
+        assertEquals(key(cache, "job", CONFIG), cache.key(in));
+    }
+
+    @Test
+    public void readsFragmentWrittenForSameKey() throws Exception {
+        FragmentCache cache = new FragmentCache(folder.getRoot(), "1.0", Long.MAX_VALUE);
+        String key = key(cache, "job", CONFIG);
+        cache.put(key, fragment("job"));
+
+        JobFragment cached = cache.get("job", key);
+        assertEquals("linux", cached.getLabel());
+        assertEquals("*/master", cached.getScmBranch());
+        assertEquals("job - Build", ((Block) cached.getBody().getStatements().get(0)).getName());
+        assertEquals("flow-definition", cached.getFlowDefinition().getNodeName());
+        assertEquals("a & b", cached.getDest().getDocumentElement().getTextContent());
+    }
+
+    @Test
+    public void ignoresFragmentOfChangedConfig() throws Exception {
+        FragmentCache cache = new FragmentCache(folder.getRoot(), "1.0", Long.MAX_VALUE);
+        cache.put(key(cache, "job", CONFIG), fragment("job"));
+        assertNull(cache.get("job", key(cache, "job", "<project/>".getBytes(StandardCharsets.UTF_8))));
+        assertNull(cache.get("other", key(cache, "other", CONFIG)));
+    }
+
+    @Test
+    public void removesFragment() throws Exception {
+        FragmentCache cache = new FragmentCache(folder.getRoot(), "1.0", Long.MAX_VALUE);
+        String key = key(cache, "job", CONFIG);
+        cache.put(key, fragment("job"));
+        cache.remove("job");
+        assertNull(cache.get("job", key));
+    }
+
+    @Test
+    public void prunesLeastRecentlyUsedFragments() throws Exception {
+        FragmentCache unbounded = new FragmentCache(folder.getRoot(), "1.0", Long.MAX_VALUE);
+        unbounded.put(key(unbounded, "first", CONFIG), fragment("first"));
+        unbounded.put(key(unbounded, "second", CONFIG), fragment("second"));
+        long size = 0;
+        for (File file : folder.getRoot().listFiles()) {
+            size += file.length();
+            file.setLastModified(System.currentTimeMillis() - 60000);
+        }
+        assertNotNull(unbounded.get("first", key(unbounded, "first", CONFIG)));
+
+        FragmentCache cache = new FragmentCache(folder.getRoot(), "1.0", size);
+        cache.put(key(cache, "third", CONFIG), fragment("third"));
+        assertNotNull(cache.get("first", key(cache, "first", CONFIG)));
+        assertNull(cache.get("second", key(cache, "second", CONFIG)));
+        assertNotNull(cache.get("third", key(cache, "third", CONFIG)));
+    }
+}
@@ -0,0 +1,147 @@
+package com.infostretch.labs.transformers;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.tasks.BuildTrigger;
+import hudson.tasks.Shell;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class TransformerTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private String convert(FreeStyleProject job, boolean parallel) throws Exception {
+        return convert(job, parallel, true);
+    }
+
+    private String convert(FreeStyleProject job, boolean parallel, boolean cache) throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("initialProject", job);
+        params.put("downStream", true);
+        params.put("commitJenkinsfile", false);
+        params.put("commitMessage", "");
+        params.put("parallel", parallel);
+        params.put("cache", cache);
+        Transformer transformer = new Transformer(params);
+        transformer.performFreeStyleTransformation();
+        return IOUtils.toString(transformer.getStream(), "UTF-8");
+    }
+
+    private FreeStyleProject createJob(String name, String downstream) throws Exception {
+        FreeStyleProject job = j.createFreeStyleProject(name);
+        job.getBuildersList().add(new Shell("echo " + name));
+        if (downstream != null) {
+            job.getPublishersList().add(new BuildTrigger(downstream, Result.SUCCESS));
+        }
+        return job;
+    }
+
+    @Test
+    public void parallelConversionMatchesSequentialConversion() throws Exception {
+        FreeStyleProject root = createJob("root", "left, right");
+        createJob("left", "leaf");
+        createJob("right", null);
+        createJob("leaf", null);
+        j.jenkins.rebuildDependencyGraph();
+
+        String sequential = convert(root, false);
+        assertThat(sequential, containsString("stage ('leaf - Build')"));
+        assertEquals(sequential, convert(root, true));
+    }
+
+    @Test
+    public void sharedDownstreamJobIsConvertedOnce() throws Exception {
+        FreeStyleProject root = createJob("root", "left, right");
+        createJob("left", "shared");
+        createJob("right", "shared");
+        createJob("shared", null);
+        j.jenkins.rebuildDependencyGraph();
+
+        String xml = convert(root, false);
+        assertEquals(1, StringUtils.countMatches(xml, "stage ('shared - Build')"));
+    }
+
+    @Test
+    public void cachedConversionFollowsChangedJobs() throws Exception {
+        FreeStyleProject root = createJob("root", "leaf");
+        FreeStyleProject leaf = createJob("leaf", null);
+        j.jenkins.rebuildDependencyGraph();
+
+        String first = convert(root, false);
+        assertEquals(first, convert(root, false));
+
+        leaf.getBuildersList().replace(new Shell("echo changed"));
+        leaf.save();
+        String changed = convert(root, false);
+        assertThat(changed, containsString("echo changed"));
+        assertEquals(convert(root, false, false), changed);
+    }
+
+    @Test
+    public void sharedDownstreamJobComesAfterAllUpstreamJobs() throws Exception {
+        FreeStyleProject root = createJob("root", "left, right");
+        createJob("left", "shared");
+        createJob("right", "shared");
+        createJob("shared", null);
+        j.jenkins.rebuildDependencyGraph();
+
+        List<String> names = new ArrayList<>();
+        for (FreeStyleProject job : new JobGraph(root, true).getJobs()) {
+            names.add(job.getFullName());
+        }
+        assertEquals(Arrays.asList("root", "left", "right", "shared"), names);
+        String xml = convert(root, false);
+        assertThat(xml.indexOf("stage ('shared - Build')"), greaterThan(xml.indexOf("stage ('right - Build')")));
+    }
+
+    @Test(timeout = 60000)
+    public void downstreamCycleIsReported() throws Exception {
+        FreeStyleProject first = createJob("first", "second");
+        createJob("second", "first");
+        j.jenkins.rebuildDependencyGraph();
+
+        JobGraph graph = new JobGraph(first, true);
+        assertEquals(2, graph.getJobs().size());
+        assertEquals(Collections.singletonList("first -> second -> first"), graph.getCycles());
+        assertThat(convert(first, false), containsString("Downstream cycle not followed: first -&gt; second -&gt; first"));
+    }
+
+    @Test
+    public void publishersWithoutBuildersAreConverted() throws Exception {
+        String config = "<project>\n"
+                + "  <publishers>\n"
+                + "    <hudson.tasks.ArtifactArchiver>\n"
+                + "      <artifacts>*.jar</artifacts>\n"
+                + "      <allowEmptyArchive>false</allowEmptyArchive>\n"
+                + "      <onlyIfSuccessful>false</onlyIfSuccessful>\n"
+                + "      <fingerprint>false</fingerprint>\n"
+                + "      <defaultExcludes>true</defaultExcludes>\n"
+                + "      <caseSensitive>true</caseSensitive>\n"
+                + "    </hudson.tasks.ArtifactArchiver>\n"
+                + "  </publishers>\n"
+                + "</project>";
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(config.getBytes("UTF-8")));
+        assertThat(new Transformer(new HashMap()).transformXml(doc, "job"), containsString("archiveArtifacts"));
+    }
+}
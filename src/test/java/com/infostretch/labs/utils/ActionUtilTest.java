@@ -0,0 +1,99 @@
+package com.infostretch.labs.utils;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import com.infostretch.labs.transformers.Transformer;
+import hudson.model.FreeStyleProject;
+import hudson.model.TopLevelItem;
+import hudson.tasks.Shell;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+public class ActionUtilTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void convertDoesNotReloadOtherItems() throws Exception {
+        FreeStyleProject other = j.createFreeStyleProject("other");
+        Folder folder = j.jenkins.createProject(Folder.class, "folder");
+        FreeStyleProject source = j.createFreeStyleProject("source");
+
+        TopLevelItem newJob = new ActionUtil(source).convert("", Collections.<String, Object>emptyMap());
+
+        assertThat(newJob, instanceOf(WorkflowJob.class));
+        assertSame(newJob, j.jenkins.getItem("source-pipeline"));
+        assertSame(other, j.jenkins.getItem("other"));
+        assertSame(source, j.jenkins.getItem("source"));
+        assertSame(folder, j.jenkins.getItem("folder"));
+    }
+
+    @Test
+    public void convertInFolderDoesNotReloadOtherItems() throws Exception {
+        Folder folder = j.jenkins.createProject(Folder.class, "folder");
+        FreeStyleProject sibling = folder.createProject(FreeStyleProject.class, "sibling");
+        FreeStyleProject source = folder.createProject(FreeStyleProject.class, "source");
+        FreeStyleProject other = j.createFreeStyleProject("other");
+
+        TopLevelItem newJob = new ActionUtil(source).convert("converted", Collections.<String, Object>emptyMap());
+
+        assertSame(newJob, folder.getItem("converted"));
+        assertSame(sibling, folder.getItem("sibling"));
+        assertSame(folder, j.jenkins.getItem("folder"));
+        assertSame(other, j.jenkins.getItem("other"));
+    }
+
+    @Test
+    public void previewDoesNotCreateJob() throws Exception {
+        FreeStyleProject source = j.createFreeStyleProject("source");
+        source.getBuildersList().add(new Shell("make"));
+
+        Transformer transformer = new ActionUtil(source).preview(Collections.<String, Object>emptyMap());
+
+        assertThat(transformer.getScript(), containsString("sh '''make"));
+        assertNull(j.jenkins.getItem("source-pipeline"));
+        assertThat(j.createWebClient().goTo("job/source/convertToPipeline/preview", "text/plain").getWebResponse()
+                .getContentAsString(), containsString("stage ('source - Build')"));
+        assertNull(j.jenkins.getItem("source-pipeline"));
+    }
+
+    @Test
+    public void searchReturnsPagesOfMatchingJobs() throws Exception {
+        Folder folder = j.jenkins.createProject(Folder.class, "folder");
+        for (int i = 0; i < 5; i++) {
+            folder.createProject(FreeStyleProject.class, "app-" + i);
+            j.createFreeStyleProject("lib-" + i);
+        }
+
+        List<FreeStyleProject> first = ActionUtil.searchFreeStyleJobs(j.jenkins, "APP", 0, 3);
+        List<FreeStyleProject> second = ActionUtil.searchFreeStyleJobs(j.jenkins, "app", 3, 3);
+
+        assertEquals(3, first.size());
+        assertEquals(2, second.size());
+        Set<String> names = new HashSet<>();
+        for (FreeStyleProject project : first) {
+            names.add(project.getFullName());
+        }
+        for (FreeStyleProject project : second) {
+            names.add(project.getFullName());
+        }
+        assertThat(names, hasItem("folder/app-4"));
+        assertEquals(5, names.size());
+        assertEquals(5, ActionUtil.searchFreeStyleJobs(folder, null, 0, 10).size());
+    }
+}
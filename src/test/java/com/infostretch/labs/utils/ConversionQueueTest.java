@@ -0,0 +1,48 @@
+package com.infostretch.labs.utils;
+
+import hudson.model.FreeStyleProject;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+public class ConversionQueueTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test(timeout = 60000)
+    public void convertsAllJobsOfBatch() throws Exception {
+        FreeStyleProject first = j.createFreeStyleProject("first");
+        FreeStyleProject second = j.createFreeStyleProject("second");
+        ConversionBatch batch = ConversionQueue.submit(Arrays.asList(first, second), Collections.<String, Object>emptyMap());
+        assertSame(batch, ConversionQueue.getBatch(batch.getId()));
+        while (!batch.isDone()) {
+            Thread.sleep(100);
+        }
+        for (ConversionBatch.JobResult result : batch.getResults()) {
+            assertEquals(result.getMessage(), ConversionBatch.Status.CONVERTED, result.getStatus());
+        }
+        assertNotNull(j.jenkins.getItemByFullName("first-pipeline", WorkflowJob.class));
+        assertNotNull(j.jenkins.getItemByFullName("second-pipeline", WorkflowJob.class));
+    }
+
+    @Test(timeout = 60000)
+    public void reportsExistingTargetAsFailure() throws Exception {
+        FreeStyleProject job = j.createFreeStyleProject("job");
+        j.createFreeStyleProject("job-pipeline");
+        ConversionBatch batch = ConversionQueue.submit(Arrays.asList(job), Collections.<String, Object>emptyMap());
+        while (!batch.isDone()) {
+            Thread.sleep(100);
+        }
+        assertEquals(ConversionBatch.Status.FAILED, batch.getResults().get(0).getStatus());
+        assertEquals(1, batch.toJSON().getInt("failed"));
+    }
+}
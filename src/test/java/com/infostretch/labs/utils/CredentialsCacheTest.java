@@ -0,0 +1,38 @@
+package com.infostretch.labs.utils;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
+import hudson.model.FreeStyleProject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CredentialsCacheTest {
+
+    private static final String URL = "https://example.com/repo.git";
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void cachesCredentialsUntilStoreIsSaved() throws Exception {
+        SystemCredentialsProvider store = SystemCredentialsProvider.getInstance();
+        store.getCredentials().add(new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "creds", "", "user", "secret"));
+        store.save();
+        FreeStyleProject job = j.createFreeStyleProject("job");
+
+        assertEquals("user", CredentialsCache.get(job, "creds", URL).getUsername());
+        assertSame(CredentialsCache.get(job, "creds", URL), CredentialsCache.get(j.createFreeStyleProject("other"), "creds", URL));
+        assertNull(CredentialsCache.get(job, "missing", URL));
+
+        store.getCredentials().clear();
+        store.save();
+
+        assertNull(CredentialsCache.get(job, "creds", URL));
+    }
+}
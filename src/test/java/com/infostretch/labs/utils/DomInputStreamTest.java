@@ -0,0 +1,110 @@
+package com.infostretch.labs.utils;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.CharConversionException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DomInputStreamTest {
+
+    private static Document parse(String xml) throws Exception {
+        return XmlUtil.getDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String read(InputStream in) throws Exception {
+        try (InputStream stream = in) {
+            return IOUtils.toString(stream, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void writesDeclarationAndContent() throws Exception {
+        Document doc = parse("<project a=\"x &amp; &quot;y&quot;\"><script>if (a &lt; b &amp;&amp; c &gt; d) { sh \"ls\" }</script>"
+                + "<!-- note --><empty/><![CDATA[raw <text>]]><?pi data?></project>");
+        String xml = read(new DomInputStream(doc, false));
+        assertTrue(xml, xml.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\""));
+        assertTrue(xml, parse(xml).isEqualNode(doc));
+    }
+
+    @Test
+    public void indentsElements() throws Exception {
+        Document doc = XmlUtil.newDocument();
+        Element root = doc.createElement("flow-definition");
+        doc.appendChild(root);
+        root.appendChild(doc.createElement("description")).setTextContent("Job");
+        root.appendChild(doc.createElement("properties"));
+        String xml = read(new DomInputStream(doc, true));
+        assertEquals("<flow-definition>\n  <description>Job</description>\n  <properties/>\n</flow-definition>",
+                xml.substring(xml.indexOf("?>") + 2).trim().replace("\r", ""));
+    }
+
+    @Test
+    public void writesElementWithoutSiblings() throws Exception {
+        Document doc = parse("<a><b>1</b><c>2</c></a>");
+        Element b = (Element) doc.getDocumentElement().getFirstChild();
+        assertEquals("<b>1</b>", read(new DomInputStream(b, false)));
+    }
+
+    @Test(expected = CharConversionException.class)
+    public void failsOnControlCharacterInText() throws Exception {
+        Document doc = XmlUtil.newDocument();
+        doc.appendChild(doc.createElement("command")).setTextContent("echo \u001b[0m");
+        read(new DomInputStream(doc, false));
+    }
+
+    @Test(expected = CharConversionException.class)
+    public void failsOnControlCharacterInAttribute() throws Exception {
+        Document doc = XmlUtil.newDocument();
+        Element command = doc.createElement("command");
+        command.setAttribute("a", "x\u0001y");
+        doc.appendChild(command);
+        read(new DomInputStream(doc, false));
+    }
+
+    @Test(expected = CharConversionException.class)
+    public void failsOnUnpairedSurrogate() throws Exception {
+        Document doc = XmlUtil.newDocument();
+        doc.appendChild(doc.createElement("script")).setTextContent("sh 'echo \uD83D'");
+        read(new DomInputStream(doc, false));
+    }
+
+    @Test
+    public void streamsLongText() throws Exception {
+        Document doc = XmlUtil.newDocument();
+        Element script = doc.createElement("script");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append(i % 100 == 0 ? "\uD83D\uDE00" : "sh 'echo " + i + "' && x\n");
+        }
+        script.setTextContent(text.toString());
+        doc.appendChild(script);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = new DomInputStream(doc, false)) {
+            for (int b; (b = in.read()) != -1; ) {
+                bytes.write(b);
+            }
+        }
+        String xml = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(read(new DomInputStream(doc, false)), xml);
+        assertEquals(text.toString(), parse(xml).getDocumentElement().getTextContent());
+    }
+
+    @Test(timeout = 10000)
+    public void closesBeforeEnd() throws Exception {
+        Document doc = XmlUtil.newDocument();
+        doc.appendChild(doc.createElement("script")).setTextContent(new String(new char[100000]).replace('\0', 'x'));
+        InputStream in = new DomInputStream(doc, false);
+        assertEquals('<', in.read());
+        in.close();
+    }
+}
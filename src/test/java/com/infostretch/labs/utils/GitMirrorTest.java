@@ -0,0 +1,80 @@
+package com.infostretch.labs.utils;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class GitMirrorTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static Map<String, String> files(String... pathsAndContents) {
+        Map<String, String> files = new LinkedHashMap<>();
+        for (int i = 0; i < pathsAndContents.length; i += 2) {
+            files.put(pathsAndContents[i], pathsAndContents[i + 1]);
+        }
+        return files;
+    }
+
+    private static Map<String, String> read(Repository repository, ObjectId commit) throws Exception {
+        Map<String, String> files = new LinkedHashMap<>();
+        ObjectChecker checker = new ObjectChecker();
+        try (RevWalk walk = new RevWalk(repository); TreeWalk tree = new TreeWalk(repository)) {
+            RevCommit revCommit = walk.parseCommit(commit);
+            tree.addTree(revCommit.getTree());
+            while (tree.next()) {
+                if (tree.isSubtree()) {
+                    checker.checkTree(repository.open(tree.getObjectId(0)).getBytes());
+                    tree.enterSubtree();
+                } else {
+                    files.put(tree.getPathString(),
+                            new String(repository.open(tree.getObjectId(0)).getBytes(), StandardCharsets.UTF_8));
+                }
+            }
+            checker.checkTree(repository.open(revCommit.getTree()).getBytes());
+        }
+        return files;
+    }
+
+    @Test
+    public void commitsFilesWithoutWorkingTree() throws Exception {
+        File remote = tmp.newFolder("remote");
+        try (Git git = Git.init().setDirectory(remote).call()) {
+            for (String path : Arrays.asList("jenkins.txt", "jenkins/a/keep", "jenkins-x/b", "README")) {
+                File file = new File(remote, path);
+                file.getParentFile().mkdirs();
+                org.apache.commons.io.FileUtils.writeStringToFile(file, path, StandardCharsets.UTF_8);
+            }
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Initial").call();
+        }
+        GitMirror mirror = GitMirror.forUrl(tmp.newFolder("mirrors"), remote.toURI().toString());
+        assertSame(mirror, GitMirror.forUrl(mirror.getDirectory().getParentFile(), remote.toURI().toString()));
+
+        try (Repository repository = mirror.open()) {
+            ObjectId tip = mirror.fetch(repository, "master", null);
+            ObjectId commit = mirror.commit(repository, "master", tip,
+                    files("Jenkinsfile", "node {}", "jenkins/a/Jenkinsfile", "a", "jenkins/b/Jenkinsfile", "b",
+                            "README", "changed"), "Add Jenkinsfiles");
+
+            assertEquals(commit, repository.resolve(Constants.R_HEADS + "master"));
+            Map<String, String> expected = new TreeMap<>(files("jenkins.txt", "jenkins.txt", "jenkins/a/keep", "jenkins/a/keep",
+                    "jenkins-x/b", "jenkins-x/b", "README", "changed", "Jenkinsfile", "node {}",
+                    "jenkins/a/Jenkinsfile", "a", "jenkins/b/Jenkinsfile", "b"));
+            assertEquals(expected, new TreeMap<>(read(repository, commit)));
+        }
+    }
+}
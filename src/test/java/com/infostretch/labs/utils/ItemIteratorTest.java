@@ -0,0 +1,61 @@
+package com.infostretch.labs.utils;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ItemIteratorTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private static List<String> names(List<? extends Item> items) {
+        List<String> names = new ArrayList<>();
+        for (Item item : items) {
+            names.add(item.getFullName());
+        }
+        return names;
+    }
+
+    @Test
+    public void walksNestedFoldersDepthFirst() throws Exception {
+        Folder a = j.jenkins.createProject(Folder.class, "a");
+        a.createProject(FreeStyleProject.class, "one");
+        Folder b = a.createProject(Folder.class, "b");
+        b.createProject(FreeStyleProject.class, "two");
+        a.createProject(FreeStyleProject.class, "three");
+        j.createFreeStyleProject("four");
+
+        assertEquals("[a/b/two, a/one, a/three, four]",
+                names(new ItemIterator<>(j.jenkins, FreeStyleProject.class).toList()).toString());
+        assertEquals("[a/b/two, a/one, a/three]", names(new ItemIterator<>(a, FreeStyleProject.class).toList()).toString());
+        assertEquals("[a, a/b]", names(new ItemIterator<>(j.jenkins, Folder.class).toList()).toString());
+    }
+
+    @Test
+    public void appliesFilterSkipAndLimit() throws Exception {
+        Folder folder = j.jenkins.createProject(Folder.class, "folder");
+        for (int i = 0; i < 6; i++) {
+            folder.createProject(FreeStyleProject.class, "job" + i);
+        }
+
+        ItemIterator<FreeStyleProject> jobs = new ItemIterator<>(j.jenkins, FreeStyleProject.class)
+                .filter(job -> !job.getName().equals("job1"))
+                .skip(1)
+                .limit(2);
+
+        assertEquals("[folder/job2, folder/job3]", names(jobs.toList()).toString());
+        assertFalse(jobs.hasNext());
+        assertEquals(0, new ItemIterator<>(j.jenkins, FreeStyleProject.class)
+                .descendInto(group -> false).toList().size());
+    }
+}
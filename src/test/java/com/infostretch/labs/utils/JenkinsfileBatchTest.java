@@ -0,0 +1,108 @@
+package com.infostretch.labs.utils;
+
+import hudson.model.Item;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JenkinsfileBatchTest {
+
+    @Test
+    public void replacesJobNameInPath() {
+        assertEquals("jenkins/folder/job/Jenkinsfile", new JenkinsfileBatch(null, "").getPath("folder/job"));
+        assertEquals("ci/job.groovy", new JenkinsfileBatch("/ci/${JOB_NAME}.groovy", "").getPath("job"));
+    }
+
+    @Test
+    public void acceptsPlainPath() {
+        assertTrue(JenkinsfileBatch.isValidPath("jenkins/folder/job/Jenkinsfile"));
+        assertTrue(JenkinsfileBatch.isValidPath("Jenkinsfile"));
+        assertTrue(JenkinsfileBatch.isValidPath("ci/.github/Jenkinsfile"));
+    }
+
+    @Test
+    public void rejectsParentSegment() {
+        assertFalse(JenkinsfileBatch.isValidPath("jenkins/../Jenkinsfile"));
+        assertFalse(JenkinsfileBatch.isValidPath(new JenkinsfileBatch("../${JOB_NAME}/Jenkinsfile", "").getPath("job")));
+    }
+
+    @Test
+    public void rejectsCurrentSegment() {
+        assertFalse(JenkinsfileBatch.isValidPath("jenkins/./Jenkinsfile"));
+    }
+
+    @Test
+    public void rejectsEmptySegment() {
+        assertFalse(JenkinsfileBatch.isValidPath("jenkins//Jenkinsfile"));
+        assertFalse(JenkinsfileBatch.isValidPath(""));
+    }
+
+    @Test
+    public void rejectsTrailingSlash() {
+        assertFalse(JenkinsfileBatch.isValidPath(new JenkinsfileBatch("jenkins/${JOB_NAME}/", "").getPath("job")));
+    }
+
+    @Test
+    public void rejectsGitSegment() {
+        assertFalse(JenkinsfileBatch.isValidPath(".git/hooks/post-checkout"));
+        assertFalse(JenkinsfileBatch.isValidPath("jenkins/.GIT/Jenkinsfile"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addRejectsInvalidPath() {
+        new JenkinsfileBatch(null, "").add(null, "Git", "https://example.com/a.git", "*/master", "creds", "../Jenkinsfile", "node {}");
+    }
+
+    @Test
+    public void pushesOncePerRepositoryAndBranch() {
+        final List<String> pushes = new ArrayList<>();
+        JenkinsfileBatch batch = new JenkinsfileBatch(null, "Add Jenkinsfiles") {
+            @Override
+            protected CompletableFuture<Void> push(Item job, String scmType, String url, String branchName, String credentialsId,
+                                Map<String, String> scripts, String commitMessage) {
+                pushes.add(url + " " + branchName + " " + scripts.keySet() + " " + commitMessage);
+                return CompletableFuture.completedFuture(null);
+            }
+        };
+        batch.add(null, "Git", "https://example.com/a.git", "*/master", "creds", batch.getPath("b"), "node {}");
+        batch.add(null, "Git", "https://example.com/b.git", "*/master", "creds", batch.getPath("c"), "node {}");
+        batch.add(null, "Git", "https://example.com/a.git", "*/master", "creds", batch.getPath("a"), "node {}");
+        batch.add(null, "Git", "https://example.com/a.git", "*/dev", "creds", batch.getPath("d"), "node {}");
+
+        assertEquals(3, batch.flush().size());
+        assertEquals("[https://example.com/a.git */master [jenkins/a/Jenkinsfile, jenkins/b/Jenkinsfile] Add Jenkinsfiles, "
+                        + "https://example.com/b.git */master [jenkins/c/Jenkinsfile] Add Jenkinsfiles, "
+                        + "https://example.com/a.git */dev [jenkins/d/Jenkinsfile] Add Jenkinsfiles]",
+                pushes.toString());
+        assertEquals(0, batch.flush().size());
+    }
+
+    @Test
+    public void completesFutureOfJobWithPushOfItsRepository() {
+        final CompletableFuture<Void> failing = new CompletableFuture<>();
+        JenkinsfileBatch batch = new JenkinsfileBatch(null, "Add Jenkinsfiles") {
+            @Override
+            protected CompletableFuture<Void> push(Item job, String scmType, String url, String branchName, String credentialsId,
+                                Map<String, String> scripts, String commitMessage) {
+                return url.endsWith("a.git") ? CompletableFuture.<Void>completedFuture(null) : failing;
+            }
+        };
+        CompletableFuture<Void> a = batch.add(null, "Git", "https://example.com/a.git", "*/master", "creds", batch.getPath("a"), "node {}");
+        CompletableFuture<Void> b = batch.add(null, "Git", "https://example.com/b.git", "*/master", "creds", batch.getPath("b"), "node {}");
+        assertFalse(a.isDone());
+
+        batch.flush();
+        assertTrue(a.isDone());
+        assertFalse(a.isCompletedExceptionally());
+        assertFalse(b.isDone());
+        failing.completeExceptionally(new IllegalStateException("rejected"));
+        assertTrue(b.isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,94 @@
+package com.infostretch.labs.utils;
+
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.util.FS;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+/**
+ * LocalFilePusher writes Jenkinsfiles into a local directory instead of an SCM repository.
+ * It stands in for a repository in tests: it is applicable to "file:" URLs of directories that are not Git
+ * repositories, and each Jenkinsfile is written to "directory/branch/path", replacing the previous one.
+ * It is not registered as an extension; tests that push through Jenkins register a subclass with @TestExtension.
+ * There are no commits, so the commit message and credentials are not used.
+ */
+public class LocalFilePusher extends JenkinsfilePusher {
+    private static final Logger logger = Logger.getLogger(LocalFilePusher.class.getName());
+
+    @Override
+    public boolean isApplicable(String scmType, String url) {
+        File directory = getDirectory(url);
+        return directory != null && directory.isDirectory() && RepositoryCache.FileKey.resolve(directory, FS.DETECTED) == null;
+    }
+
+    @Override
+    public CompletableFuture<Void> push(Map<String, String> scripts, String url, String branchName,
+                                        String commitMessage, StandardUsernamePasswordCredentials credentials) {
+        CompletableFuture<Void> push = new CompletableFuture<>();
+        try {
+            File directory = getDirectory(url);
+            if (directory == null) {
+                throw new IOException(url + " is not a local directory");
+            }
+            String branch = branchName.replaceFirst("^\\*/", "");
+            if (Arrays.asList(branch.split("[/\\\\]")).contains("..")) {
+                throw new IOException("Branch " + branchName + " is outside of " + directory);
+            }
+            Path root = new File(directory, branch).toPath().normalize();
+            if (!root.startsWith(directory.toPath().normalize())) {
+                throw new IOException("Branch " + branchName + " is outside of " + directory);
+            }
+            for (Map.Entry<String, String> script : scripts.entrySet()) {
+                write(root, script.getKey(), script.getValue());
+            }
+            logger.info("Wrote " + scripts.keySet() + " to " + root);
+            push.complete(null);
+        } catch (IOException | RuntimeException e) {
+            push.completeExceptionally(e);
+        }
+        return push;
+    }
+
+    /**
+     * Writes a Jenkinsfile through a temporary file, so that readers never see it half written.
+     */
+    private static void write(Path root, String path, String script) throws IOException {
+        Path file = root.resolve(path).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            throw new IOException("Jenkinsfile " + path + " is outside of " + root);
+        }
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), ".Jenkinsfile", ".tmp");
+        try {
+            Files.write(temp, script.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return Directory of a "file:" URL, or null for other URLs.
+     */
+    private static File getDirectory(String url) {
+        if (url == null || !url.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return new File(URI.create(url));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.infostretch.labs.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LocalFilePusherTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final LocalFilePusher pusher = new LocalFilePusher();
+
+    @Test
+    public void appliesToLocalDirectoriesOnly() throws Exception {
+        File directory = tmp.newFolder("jenkinsfiles");
+        File repository = tmp.newFolder("remote.git");
+        org.eclipse.jgit.api.Git.init().setBare(true).setDirectory(repository).call().close();
+
+        assertTrue(pusher.isApplicable("hudson.plugins.git.GitSCM", directory.toURI().toString()));
+        assertFalse(pusher.isApplicable("hudson.plugins.git.GitSCM", repository.toURI().toString()));
+        assertFalse(pusher.isApplicable("hudson.plugins.git.GitSCM", new File(directory, "missing").toURI().toString()));
+        assertFalse(pusher.isApplicable("hudson.plugins.git.GitSCM", "https://example.com/repo.git"));
+    }
+
+    @Test
+    public void writesJenkinsfilesUnderBranch() throws Exception {
+        File directory = tmp.newFolder("jenkinsfiles");
+        Map<String, String> scripts = new HashMap<>();
+        scripts.put("Jenkinsfile", "node {}");
+        scripts.put("jenkins/folder/job/Jenkinsfile", "node { echo 'job' }");
+
+        CompletableFuture<Void> push = pusher.push(scripts, directory.toURI().toString(), "*/master", "Add Jenkinsfiles", null);
+        push.get();
+
+        assertEquals("node {}", FileUtils.readFileToString(new File(directory, "master/Jenkinsfile"), StandardCharsets.UTF_8));
+        assertEquals("node { echo 'job' }",
+                FileUtils.readFileToString(new File(directory, "master/jenkins/folder/job/Jenkinsfile"), StandardCharsets.UTF_8));
+
+        pusher.push(Collections.singletonMap("Jenkinsfile", "node { echo 'again' }"), directory.toURI().toString(),
+                "master", "Update Jenkinsfile", null).get();
+        assertEquals("node { echo 'again' }", FileUtils.readFileToString(new File(directory, "master/Jenkinsfile"), StandardCharsets.UTF_8));
+        assertEquals(2, new File(directory, "master").list().length);
+    }
+
+    @Test
+    public void failsForPathsOutsideOfBranch() throws Exception {
+        File directory = tmp.newFolder("jenkinsfiles");
+        CompletableFuture<Void> push = pusher.push(Collections.singletonMap("../../Jenkinsfile", "node {}"),
+                directory.toURI().toString(), "master", "Add Jenkinsfile", null);
+
+        assertTrue(push.isCompletedExceptionally());
+        assertFalse(new File(directory.getParentFile(), "Jenkinsfile").exists());
+    }
+
+    @Test
+    public void failsForBranchOutsideOfDirectory() throws Exception {
+        File directory = tmp.newFolder("jenkinsfiles");
+        CompletableFuture<Void> push = pusher.push(Collections.singletonMap("Jenkinsfile", "node {}"),
+                directory.toURI().toString(), "*/../../escaped", "Add Jenkinsfile", null);
+
+        assertTrue(push.isCompletedExceptionally());
+        assertFalse(new File(directory.getParentFile().getParentFile(), "escaped").exists());
+    }
+}
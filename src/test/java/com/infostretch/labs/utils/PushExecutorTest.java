@@ -0,0 +1,103 @@
+package com.infostretch.labs.utils;
+
+import org.eclipse.jgit.errors.TransportException;
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PushExecutorTest {
+
+    @Test
+    public void retriesFailedPushWithBackoff() throws Exception {
+        PushExecutor executor = new PushExecutor(2, 1, 3, 10);
+        AtomicInteger attempts = new AtomicInteger();
+        long start = System.nanoTime();
+        executor.submit("https://example.com/repo.git", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("Could not push", new SocketTimeoutException("Read timed out"));
+            }
+        }).get(10, TimeUnit.SECONDS);
+
+        assertEquals(3, attempts.get());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 30);
+    }
+
+    @Test
+    public void failsOnceRetriesAreExhausted() throws Exception {
+        PushExecutor executor = new PushExecutor(1, 1, 2, 1);
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            executor.submit("git@example.com:repo.git", () -> {
+                attempts.incrementAndGet();
+                throw new TransportException("git@example.com:repo.git: Connection refused");
+            }).get(10, TimeUnit.SECONDS);
+            fail("Push should fail");
+        } catch (ExecutionException e) {
+            assertEquals("git@example.com:repo.git: Connection refused", e.getCause().getMessage());
+        }
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void doesNotRetryPermanentFailure() throws Exception {
+        PushExecutor executor = new PushExecutor(1, 1, 3, 1);
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            executor.submit("https://example.com/repo.git", () -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("Could not push",
+                        new TransportException("https://example.com/repo.git: not authorized"));
+            }).get(10, TimeUnit.SECONDS);
+            fail("Push should fail");
+        } catch (ExecutionException e) {
+            assertEquals("Could not push", e.getCause().getMessage());
+        }
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void releasesHostWhenPushThrowsError() throws Exception {
+        PushExecutor executor = new PushExecutor(1, 1, 3, 1);
+        CompletableFuture<Void> failing = executor.submit("https://example.com/a.git", () -> {
+            throw new AssertionError("broken");
+        });
+        executor.submit("https://example.com/b.git", () -> { }).get(10, TimeUnit.SECONDS);
+        try {
+            failing.get(10, TimeUnit.SECONDS);
+            fail("Push should fail");
+        } catch (ExecutionException e) {
+            assertEquals("broken", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void limitsConcurrentPushesPerHost() throws Exception {
+        PushExecutor executor = new PushExecutor(8, 2, 0, 0);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger otherHostRunning = new AtomicInteger();
+        List<CompletableFuture<Void>> pushes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            pushes.add(executor.submit("https://busy.example.com/repo" + i + ".git", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+            }));
+        }
+        pushes.add(executor.submit("https://other.example.com/repo.git", () -> otherHostRunning.set(running.get())));
+        CompletableFuture.allOf(pushes.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, maxRunning.get());
+        assertTrue(otherHostRunning.get() > 0);
+    }
+}
@@ -0,0 +1,45 @@
+package com.infostretch.labs.utils;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TagIndexTest {
+
+    private static Document parse(String fixture) throws Exception {
+        try (InputStream is = TagIndexTest.class.getResourceAsStream("/xml/" + fixture)) {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(is);
+        }
+    }
+
+    @Test
+    public void findsSameElementsAsGetElementsByTagName() throws Exception {
+        Document doc = parse("shell-script-unstable-return.xml");
+        NodeList elements = doc.getElementsByTagName("*");
+        for (int i = 0; i < elements.getLength(); i++) {
+            Element element = (Element) elements.item(i);
+            String tag = element.getNodeName();
+            assertSame(tag, doc.getElementsByTagName(tag).item(0), TagIndex.getFirstElement(doc, tag));
+            NodeList children = element.getElementsByTagName("*");
+            for (int j = 0; j < children.getLength(); j++) {
+                String childTag = children.item(j).getNodeName();
+                assertSame(childTag, element.getElementsByTagName(childTag).item(0), TagIndex.getFirstElement(element, childTag));
+            }
+        }
+    }
+
+    @Test
+    public void elementIsNotItsOwnDescendant() throws Exception {
+        Document doc = parse("freestyle-config.xml");
+        Element builders = TagIndex.getFirstElement(doc, "builders");
+        assertNull(TagIndex.getFirstElement(builders, "builders"));
+        assertNull(TagIndex.getFirstElement(doc, "missing"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.infostretch.labs.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.parsers.DocumentBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class XmlUtilTest {
+
+    @Test
+    public void reusesInstancesWithinThread() throws Exception {
+        assertSame(XmlUtil.getDocumentBuilder(), XmlUtil.getDocumentBuilder());
+    }
+
+    @Test
+    public void doesNotShareInstancesBetweenThreads() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<DocumentBuilder> other = executor.submit((Callable<DocumentBuilder>) XmlUtil::getDocumentBuilder);
+            assertNotSame(XmlUtil.getDocumentBuilder(), other.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = SAXParseException.class)
+    public void rejectsDoctype() throws Exception {
+        String xml = "<!DOCTYPE project [<!ENTITY secret SYSTEM \"file:///etc/passwd\">]><project>&secret;</project>";
+        XmlUtil.getDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void rejectsExternalEntitiesWithReusedBuilder() throws Exception {
+        File secret = File.createTempFile("secret", ".txt");
+        try {
+            FileUtils.writeStringToFile(secret, "secret", StandardCharsets.UTF_8);
+            String xml = "<!DOCTYPE project [<!ENTITY secret SYSTEM \"" + secret.toURI() + "\">]><project>&secret;</project>";
+            for (int i = 0; i < 2; i++) {
+                DocumentBuilder builder = XmlUtil.getDocumentBuilder();
+                builder.parse(new ByteArrayInputStream("<project/>".getBytes(StandardCharsets.UTF_8)));
+                try {
+                    Document doc = builder.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+                    fail("Parsed " + doc.getDocumentElement().getTextContent());
+                } catch (SAXException | IOException e) {
+                    // Rejected by the parser or by the entity resolver.
+                }
+            }
+        } finally {
+            secret.delete();
+        }
+    }
+}